@@ -1,13 +1,46 @@
+import GameSettings.AsyncKeyboard;
 import GameSettings.Game;
+import GameSettings.GameProfiler;
+import GameSettings.LevelFile;
+import GameSettings.SessionRecorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.management.JMException;
 
 /**
  * this class initializes and runs the game in the default settings.
+ * <p>
+ * usage: Ass5Game [session log to record to] [binary level file]
+ * <p>
+ * the game is profiled, and the profile can be watched through JMX as Arkanoid:type=GameProfiler.
+ * frames are drawn on their own thread, so the physics keeps its pace however slow drawing is, and the keys are
+ * sampled on their own thread, so the paddle moves for exactly as long as a key is held.
  */
 public class Ass5Game {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, JMException {
         Game game = new Game();
-        game.initialize();
+        game.setRenderThread(true);
+        game.setAsyncInput(AsyncKeyboard.DEFAULT_SAMPLE_RATE);
+        GameProfiler profiler = new GameProfiler();
+        profiler.register("Arkanoid:type=GameProfiler");
+        game.setProfiler(profiler);
+        SessionRecorder recorder = null;
+        if (args.length > 0 && !args[0].isEmpty()) {
+            recorder = new SessionRecorder(new FileOutputStream(args[0]));
+            game.record(recorder);
+        }
+        if (args.length > 1) {
+            game.initialize(LevelFile.open(Path.of(args[1])));
+        } else {
+            game.initialize();
+        }
         game.run();
+        if (recorder != null) {
+            recorder.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+import GameSettings.BoundingVolumeHierarchy;
+import GameSettings.CollisionGrid;
+import GameSettings.CollisionIndex;
+import GameSettings.Game;
+import GameSettings.LevelFile;
+import GameSettings.LevelWriter;
+import GameSettings.LinearScan;
+import GameSettings.ScriptedKeyboard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * this class checks that every collision index and every way of stepping the balls plays exactly the same game.
+ * <p>
+ * usage: CompareModes [seeds] [max ticks per game] [binary level files...]
+ * <p>
+ * every seed builds a random level and paddle script, which are played, like the default level and the given level
+ * files, with the balls passing through each other and with the balls colliding. every game is played in lockstep
+ * by each combination of index (linear, grid, bvh), stepping (poll, events, cache) and parallel or serial queries,
+ * and the state hash of each is compared with the one of linear/poll/serial after every tick. the first tick at
+ * which a combination differs is reported, and the exit status is 1 if any did.
+ */
+public class CompareModes {
+    private static final String[] INDEXES = {"linear", "grid", "bvh"};
+    private static final String[] STEPPINGS = {"poll", "events", "cache"};
+    private static final String DEFAULT_SCRIPT = "LLLLLLLLLL..........RRRRRRRRRR..........";
+    private static final int GRAY = 0x808080;
+
+    public static void main(String[] args) throws IOException {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long maxTicks = args.length > 1 ? Long.parseLong(args[1]) : 3000;
+
+        int mismatches = 0;
+        int games = 0;
+        long ticks = 0;
+        long start = System.nanoTime();
+        List<String> names = new ArrayList<>();
+        List<LevelFile> levels = new ArrayList<>();
+        List<String> scripts = new ArrayList<>();
+        names.add("default level");
+        levels.add(new LevelFile(Game.defaultLevel().toByteBuffer()));
+        scripts.add(DEFAULT_SCRIPT);
+        for (int i = 2; i < args.length; i++) {
+            names.add(args[i]);
+            levels.add(LevelFile.open(Path.of(args[i])));
+            scripts.add(DEFAULT_SCRIPT);
+        }
+        for (int seed = 0; seed < seeds; seed++) {
+            Random random = new Random(seed);
+            names.add("random level " + seed);
+            levels.add(new LevelFile(randomLevel(random).toByteBuffer()));
+            scripts.add(randomScript(random));
+        }
+
+        for (int i = 0; i < levels.size(); i++) {
+            for (boolean ballCollisions : new boolean[] {false, true}) {
+                Game[] modes = new Game[INDEXES.length * STEPPINGS.length * 2];
+                String[] modeNames = new String[modes.length];
+                int m = 0;
+                for (String index : INDEXES) {
+                    for (String stepping : STEPPINGS) {
+                        for (boolean parallel : new boolean[] {false, true}) {
+                            modeNames[m] = index + "/" + stepping + "/" + (parallel ? "parallel" : "serial");
+                            modes[m++] = newGame(levels.get(i), scripts.get(i), i, index, stepping, parallel,
+                                    ballCollisions);
+                        }
+                    }
+                }
+                String game = names.get(i) + (ballCollisions ? ", colliding balls" : ", passing balls");
+                mismatches += playInLockstep(game, modes, modeNames, maxTicks);
+                games++;
+                ticks += modes[0].getTick();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games of %d modes, %d ticks each, %d mismatches in %.3f s%n",
+                games, INDEXES.length * STEPPINGS.length * 2, ticks, mismatches, seconds);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the same game in every mode one tick at a time, and reports every mode whose state differs from the
+     * one of the first mode.
+     * @return the number of modes that differed
+     */
+    private static int playInLockstep(String game, Game[] modes, String[] modeNames, long maxTicks) {
+        boolean[] differed = new boolean[modes.length];
+        int mismatches = 0;
+        Game reference = modes[0];
+        while (reference.getTick() < maxTicks && reference.isRunning()) {
+            for (int m = 0; m < modes.length; m++) {
+                if (!differed[m]) {
+                    modes[m].runHeadless(1);
+                }
+            }
+            long hash = reference.stateHash();
+            for (int m = 1; m < modes.length; m++) {
+                if (!differed[m] && (modes[m].stateHash() != hash || modes[m].getTick() != reference.getTick())) {
+                    System.out.println(game + ": " + modeNames[m] + " differs from " + modeNames[0]
+                            + " at tick " + reference.getTick());
+                    differed[m] = true;
+                    mismatches++;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private static Game newGame(LevelFile level, String script, long seed, String index, String stepping,
+                                boolean parallel, boolean ballCollisions) {
+        Game game = new Game(new ScriptedKeyboard(script), seed);
+        game.setCollisionIndex(newIndex(index));
+        game.setEventDriven(stepping.equals("events"));
+        game.setCandidateCaching(stepping.equals("cache"));
+        game.setBallCollisions(ballCollisions);
+        game.initialize(level);
+        game.getBallSystem().setParallel(parallel);
+        return game;
+    }
+
+    private static CollisionIndex newIndex(String name) {
+        switch (name) {
+            case "linear":
+                return new LinearScan();
+            case "bvh":
+                return new BoundingVolumeHierarchy();
+            default:
+                return new CollisionGrid();
+        }
+    }
+
+    /**
+     * Builds a level of bordered blocks of many sizes, some of them overlapping, and a few balls of random size,
+     * direction and speed, or once in eight levels enough small balls to query in parallel.
+     */
+    private static LevelWriter randomLevel(Random random) {
+        LevelWriter level = new LevelWriter();
+        level.block(0, 0, 800, 30, GRAY, 0);
+        level.block(0, 30, 30, 570, GRAY, 0);
+        level.block(770, 30, 30, 570, GRAY, 0);
+        level.block(0, 570, 800, 30, GRAY, LevelFile.DEATH);
+        double paddleWidth = 40 + random.nextInt(120);
+        level.paddle(30 + random.nextDouble() * (740 - paddleWidth), 550, paddleWidth, 10, 0x00FFFF);
+
+        int blocks = 1 + random.nextInt(random.nextInt(8) == 0 ? 2000 : 150);
+        for (int i = 0; i < blocks; i++) {
+            double width = 2 + random.nextDouble() * (random.nextInt(10) == 0 ? 300 : 60);
+            double height = 2 + random.nextDouble() * 30;
+            double x = 30 + random.nextDouble() * (740 - width);
+            double y = 30 + random.nextDouble() * (300 - height);
+            int flags = i == 0 || random.nextInt(5) > 0 ? LevelFile.REMOVABLE | LevelFile.SCORES : 0;
+            level.block(x, y, width, height, random.nextInt(0x1000000), flags);
+        }
+
+        boolean crowd = random.nextInt(8) == 0;
+        int balls = crowd ? 600 : 1 + random.nextInt(32);
+        for (int i = 0; i < balls; i++) {
+            int radius = crowd ? 1 + random.nextInt(3) : 1 + random.nextInt(10);
+            double x = 40 + random.nextDouble() * 720;
+            double y = 350 + random.nextDouble() * 180;
+            level.ball(x, y, radius, random.nextDouble() * 360, 1 + random.nextDouble() * 11,
+                    random.nextInt(0x1000000));
+        }
+        return level;
+    }
+
+    private static String randomScript(Random random) {
+        StringBuilder script = new StringBuilder();
+        int length = 1 + random.nextInt(80);
+        for (int i = 0; i < length; i++) {
+            script.append("LR.".charAt(random.nextInt(3)));
+        }
+        return script.toString();
+    }
+}
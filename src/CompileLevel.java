@@ -0,0 +1,24 @@
+import GameSettings.LevelText;
+import GameSettings.LevelWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * this class converts a level from its text form to the binary level format the game loads.
+ * <p>
+ * usage: CompileLevel [text level] [binary level to write]
+ */
+public class CompileLevel {
+
+    public static void main(String[] args) throws IOException {
+        LevelWriter level;
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]))) {
+            level = LevelText.parse(reader);
+        }
+        level.writeTo(Path.of(args[1]));
+        System.out.println(level.getBlockCount() + " blocks written to " + args[1]);
+    }
+}
@@ -7,11 +7,19 @@ import biuoop.DrawSurface;
  * The Ball class represents a 2D ball with a center point, radius, color, and velocity.
  */
 public class Ball implements Sprite {
-    private Point center;                   // The center point of the ball
+    /**
+     * The maximum number of hits resolved within one step of a ball.
+     */
+    public static final int MAX_HITS_PER_STEP = 4;
+
+    private final MutableVec2 center;       // The center point of the ball
+    private final MutableVec2 previousCenter; // The center point of the ball before the last time step
     private int radius;                     // The radius of the ball
     private java.awt.Color color;           // The color of the ball
-    private Velocity velocity;              // The velocity of the ball
+    private final MutableVec2 velocity;     // The velocity of the ball
     private GameEnvironment environment;    // The game environment for collision detection
+    private BallSystem system;              // The ball system holding the state of the ball, or null
+    private int slot;                       // The index of the ball in its ball system
 
     /**
      * Constructs a new Ball object with the specified center point, radius, color, and game environment.
@@ -22,10 +30,11 @@ public class Ball implements Sprite {
      * @param environment the game environment for collision detection
      */
     public Ball(Point center, int radius, java.awt.Color color, GameEnvironment environment) {
-        this.center = center;
+        this.center = new MutableVec2(center.getX(), center.getY());
+        this.previousCenter = new MutableVec2(center.getX(), center.getY());
         this.radius = radius;
         this.color = color;
-        this.velocity = new Velocity(0, 0);
+        this.velocity = new MutableVec2();
         this.environment = environment;
     }
 
@@ -39,10 +48,11 @@ public class Ball implements Sprite {
      * @param environment the game environment for collision detection
      */
     public Ball(int x, int y, int radius, java.awt.Color color, GameEnvironment environment) {
-        this.center = new Point(x, y);
+        this.center = new MutableVec2(x, y);
+        this.previousCenter = new MutableVec2(x, y);
         this.radius = radius;
         this.color = color;
-        this.velocity = new Velocity(0, 0);
+        this.velocity = new MutableVec2();
         this.environment = environment;
     }
 
@@ -51,7 +61,7 @@ public class Ball implements Sprite {
      * @return the x coordinate of the center point of the ball
      */
     public int getX() {
-        return (int) this.center.getX();
+        return (int) x();
     }
 
     /**
@@ -59,7 +69,7 @@ public class Ball implements Sprite {
      * @return the y coordinate of the center point of the ball
      */
     public int getY() {
-        return (int) this.center.getY();
+        return (int) y();
     }
 
     /**
@@ -75,7 +85,7 @@ public class Ball implements Sprite {
      * @return the center point of the ball
      */
     public Point getCenter() {
-        return this.center;
+        return new Point(x(), y());
     }
 
     /**
@@ -92,7 +102,24 @@ public class Ball implements Sprite {
      */
     public void drawOn(DrawSurface surface) {
         surface.setColor(this.color);
-        surface.fillCircle((int) this.center.getX(), (int) this.center.getY(), this.radius);
+        surface.fillCircle(getX(), getY(), this.radius);
+    }
+
+    /**
+     * Draws the ball on the given DrawSurface, between its center before and after the last time step.
+     * @param surface the DrawSurface on which to draw the ball
+     * @param alpha how far between the previous (0) and the current (1) center to draw
+     */
+    @Override
+    public void drawOn(DrawSurface surface, double alpha) {
+        if (this.system != null) {
+            this.system.drawBall(surface, this.slot, alpha);
+            return;
+        }
+        double x = this.previousCenter.getX() + (this.center.getX() - this.previousCenter.getX()) * alpha;
+        double y = this.previousCenter.getY() + (this.center.getY() - this.previousCenter.getY()) * alpha;
+        surface.setColor(this.color);
+        surface.fillCircle((int) x, (int) y, this.radius);
     }
 
     /**
@@ -100,7 +127,7 @@ public class Ball implements Sprite {
      * @param v the new velocity of the ball
      */
     public void setVelocity(Velocity v) {
-        this.velocity = v;
+        setVelocity(v.getDx(), v.getDy());
     }
 
     /**
@@ -109,7 +136,11 @@ public class Ball implements Sprite {
      * @param dy the change in y position of the ball for each unit of time
      */
     public void setVelocity(double dx, double dy) {
-        this.velocity = new Velocity(dx, dy);
+        if (this.system != null) {
+            this.system.setVelocity(this.slot, dx, dy);
+            return;
+        }
+        this.velocity.set(dx, dy);
     }
 
     /**
@@ -117,7 +148,7 @@ public class Ball implements Sprite {
      * @return the velocity of the ball
      */
     public Velocity getVelocity() {
-        return this.velocity;
+        return new Velocity(dx(), dy());
     }
 
     /**
@@ -130,34 +161,33 @@ public class Ball implements Sprite {
      */
     public void moveOneStep(int boundaryWidth, int boundaryHeight, int startX, int startY) {
         // Calculate the next center point of the ball based on its current velocity.
-        Point nextCenter = this.getVelocity().applyToPoint(this.center);
-        int nextX = (int) nextCenter.getX();
-        int nextY = (int) nextCenter.getY();
+        int nextX = (int) (x() + dx());
+        int nextY = (int) (y() + dy());
 
         // Check if the ball goes outside the boundaries
         if (nextX - this.getSize() < startX) {
             // If the ball reaches the left boundary, set it to the boundary and reverse its x velocity
             nextX = this.getSize() + startX;
-            this.setVelocity(new Velocity(-this.getVelocity().getDx(), this.getVelocity().getDy()));
+            this.setVelocity(-dx(), dy());
         }
         if (nextX + this.getSize() > boundaryWidth + startX) {
             // If the ball reaches the right boundary, set it to the boundary and reverse its x velocity
             nextX = boundaryWidth + startX - this.getSize();
-            this.setVelocity(new Velocity(-this.getVelocity().getDx(), this.getVelocity().getDy()));
+            this.setVelocity(-dx(), dy());
         }
         if (nextY - this.getSize() < startY) {
             // If the ball reaches the top boundary, set it to the boundary and reverse its y velocity
             nextY = this.getSize() + startY;
-            this.setVelocity(new Velocity(this.getVelocity().getDx(), -this.getVelocity().getDy()));
+            this.setVelocity(dx(), -dy());
         }
         if (nextY + this.getSize() > boundaryHeight + startY) {
             // If the ball reaches the bottom boundary, set it to the boundary and reverse its y velocity
             nextY = boundaryHeight - this.getSize() + startY;
-            this.setVelocity(new Velocity(this.getVelocity().getDx(), -this.getVelocity().getDy()));
+            this.setVelocity(dx(), -dy());
         }
 
         // Update the position of the ball
-        this.center = new Point(nextX, nextY);
+        setCenter(nextX, nextY);
     }
 
     /**
@@ -167,56 +197,49 @@ public class Ball implements Sprite {
      * @param boundaryHeight the height of the boundary
      */
     public void moveOneStep(int boundaryWidth, int boundaryHeight) {
-        Point nextCenter = this.getVelocity().applyToPoint(this.center);
-        int nextX = (int) nextCenter.getX();
-        int nextY = (int) nextCenter.getY();
-
-        // Check if the ball goes outside the boundaries
-        if (nextX - this.getSize() < 0) {
-            nextX = this.getSize();
-            this.setVelocity(new Velocity(-this.getVelocity().getDx(), this.getVelocity().getDy()));
-        }
-        if (nextX + this.getSize() > boundaryWidth) {
-            nextX = boundaryWidth - this.getSize();
-            this.setVelocity(new Velocity(-this.getVelocity().getDx(), this.getVelocity().getDy()));
-        }
-        if (nextY - this.getSize() < 0) {
-            nextY = this.getSize();
-            this.setVelocity(new Velocity(this.getVelocity().getDx(), -this.getVelocity().getDy()));
-        }
-        if (nextY + this.getSize() > boundaryHeight) {
-            nextY = boundaryHeight - this.getSize();
-            this.setVelocity(new Velocity(this.getVelocity().getDx(), -this.getVelocity().getDy()));
-        }
-
-        this.center = new Point(nextX, nextY);
+        moveOneStep(boundaryWidth, boundaryHeight, 0, 0);
     }
 
     /**
      * Moves the ball one step.
-     * If the ball collides with any collidable objects, it will change its velocity accordingly.
+     * The ball is swept as a circle along its velocity. If it touches a collidable object, it moves to the touching
+     * point, changes its velocity accordingly and continues for the rest of the step, so fast balls can not pass
+     * through thin objects. At most MAX_HITS_PER_STEP hits are resolved in one step.
      */
     public void moveOneStep() {
-        // Calculate the ball's trajectory
-        Line trajectory = new Line(this.center, this.velocity.applyToPoint(this.center));
-        // Check if the trajectory collides with any collidable objects
-        CollisionInfo collisionInfo = environment.getClosestCollision(trajectory);
-        if (collisionInfo != null) {
-            // There was a collision - update the velocity
-            Velocity newVelocity = collisionInfo.collisionObject().hit(this, collisionInfo.collisionPoint(), this.velocity);
+        if (this.system != null) {
+            this.system.step(this.slot);
+            return;
+        }
+        double remaining = 1;
+        for (int hits = 0; hits < MAX_HITS_PER_STEP && remaining > 0; hits++) {
+            double x = this.center.getX();
+            double y = this.center.getY();
+            double dx = this.velocity.getX() * remaining;
+            double dy = this.velocity.getY() * remaining;
+            // Check if the swept ball touches any collidable objects
+            CollisionInfo collisionInfo = environment.getClosestCollision(x, y, x + dx, y + dy, this.radius);
+            if (collisionInfo == null) {
+                this.center.add(dx, dy);
+                return;
+            }
+            // Move the ball to where it touches the object, then update the velocity
+            double t = collisionInfo.collisionTime();
+            this.center.add(dx * t, dy * t);
+            remaining *= 1 - t;
+            Velocity newVelocity = collisionInfo.collisionObject().hit(this, collisionInfo.collisionPoint(),
+                    this.velocity.toVelocity());
             if (newVelocity == null) {
-                newVelocity = this.velocity.reverseVelocity();
-                this.center = newVelocity.applyToPoint(this.center);
+                this.velocity.negate();
+            } else {
+                this.velocity.set(newVelocity.getDx(), newVelocity.getDy());
             }
-            this.velocity = newVelocity;
         }
-
-        // Update the ball's position
-        this.center = this.velocity.applyToPoint(this.center);
     }
 
     @Override
     public void timePassed() {
+        this.previousCenter.set(this.center);
         moveOneStep();
     }
 
@@ -233,6 +256,76 @@ public class Ball implements Sprite {
      * @param game the game to remove the ball from
      */
     public void removeFromGame(Game game) {
+        if (this.system != null) {
+            this.system.removeBall(this);
+            return;
+        }
         game.removeSprite(this);
     }
+
+    /**
+     * Returns the ball system holding the state of the ball.
+     * @return the ball system, or null if the ball holds its own state
+     */
+    public BallSystem getSystem() {
+        return this.system;
+    }
+
+    /**
+     * Moves the state of the ball into the given slot of a ball system.
+     * @param ballSystem the ball system
+     * @param index the slot of the ball in the system
+     */
+    void bind(BallSystem ballSystem, int index) {
+        this.system = ballSystem;
+        this.slot = index;
+    }
+
+    /**
+     * Takes the state of the ball back from its ball system.
+     * @param x the x coordinate of the center of the ball
+     * @param y the y coordinate of the center of the ball
+     * @param dx the change in x position of the ball for each unit of time
+     * @param dy the change in y position of the ball for each unit of time
+     */
+    void unbind(double x, double y, double dx, double dy) {
+        this.system = null;
+        this.center.set(x, y);
+        this.previousCenter.set(x, y);
+        this.velocity.set(dx, dy);
+    }
+
+    /**
+     * Returns the slot of the ball in its ball system.
+     * @return the slot
+     */
+    int getSlot() {
+        return this.slot;
+    }
+
+    private void setCenter(double x, double y) {
+        if (this.system != null) {
+            this.system.setCenter(this.slot, x, y);
+            return;
+        }
+        this.center.set(x, y);
+    }
+
+    // The state accessors below read from the ball system when the ball belongs to one
+
+    private double x() {
+        return this.system != null ? this.system.getX(this.slot) : this.center.getX();
+    }
+
+    private double y() {
+        return this.system != null ? this.system.getY(this.slot) : this.center.getY();
+    }
+
+    private double dx() {
+        return this.system != null ? this.system.getDx(this.slot) : this.velocity.getX();
+    }
+
+    private double dy() {
+        return this.system != null ? this.system.getDy(this.slot) : this.velocity.getY();
+    }
 }
@@ -0,0 +1,553 @@
+package GameObjects;
+
+import GameSettings.*;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The BallSystem class stores the state of many balls in primitive arrays and advances all of them in one loop.
+ * <p>
+ * Every ball added to the system becomes a view of its slot: its getters and setters read and write the arrays,
+ * so hit listeners and collidables keep receiving regular Ball objects. The system is a single sprite, so the
+ * balls it holds must not be added to the game as sprites themselves.
+ * <p>
+ * Large systems step in two phases. First, the collision of every ball is queried in parallel; the queries only
+ * read the environment. Then, in slot order on the calling thread, the hits are applied and the hit listeners are
+ * notified. A query is redone if the environment changed after it was made, for example because a listener removed
+ * a block, so the result is always the same as stepping the balls one after the other.
+ * <p>
+ * Optionally, the balls also bounce off each other once all of them moved, found by a {@link SweepAndPrune}.
+ * <p>
+ * In event-driven mode, an {@link ImpactSchedule} predicts when every ball hits a static collidable next, and
+ * only the balls close to their impact, or about to touch a moving collidable, query the environment on a tick.
+ * The balls then step one after the other, with the same results.
+ * <p>
+ * Optionally, every ball keeps a {@link CandidateCache} of the static collidables around its path, so its
+ * queries test only those.
+ */
+public class BallSystem implements Sprite {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final GameEnvironment environment;
+    private Ball[] balls;
+    private double[] x;
+    private double[] y;
+    private double[] previousX;
+    private double[] previousY;
+    private double[] dx;
+    private double[] dy;
+    private int[] radius;
+    private Color[] color;
+    private boolean[] removed;
+    private CollisionInfo[] pending;
+    private int size;
+    private boolean stepping;
+    private boolean hasRemoved;
+    private boolean parallel;
+    private SweepAndPrune ballCollisions;   // null unless balls bounce off each other
+    private ImpactSchedule impacts;         // null unless the balls step by events
+    private CandidateCache[] caches;        // the candidate cache of every slot, or null if balls do not cache
+
+    /**
+     * Constructs an empty ball system whose balls collide with the given environment.
+     * @param environment the game environment for collision detection
+     */
+    public BallSystem(GameEnvironment environment) {
+        this.environment = environment;
+        this.balls = new Ball[INITIAL_CAPACITY];
+        this.x = new double[INITIAL_CAPACITY];
+        this.y = new double[INITIAL_CAPACITY];
+        this.previousX = new double[INITIAL_CAPACITY];
+        this.previousY = new double[INITIAL_CAPACITY];
+        this.dx = new double[INITIAL_CAPACITY];
+        this.dy = new double[INITIAL_CAPACITY];
+        this.radius = new int[INITIAL_CAPACITY];
+        this.color = new Color[INITIAL_CAPACITY];
+        this.removed = new boolean[INITIAL_CAPACITY];
+        this.pending = new CollisionInfo[INITIAL_CAPACITY];
+        this.parallel = true;
+    }
+
+    /**
+     * Sets whether large systems query their collisions on several cores. The results are the same either way.
+     * @param parallel true to query in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Sets whether the balls of the system bounce off each other.
+     * Touching balls that move towards each other exchange momentum as elastic discs at the end of every step.
+     * This is off by default, as in the classic game balls pass through each other.
+     * @param enabled true to make the balls collide
+     */
+    public void setBallCollisions(boolean enabled) {
+        if (!enabled) {
+            ballCollisions = null;
+            return;
+        }
+        if (ballCollisions == null) {
+            ballCollisions = new SweepAndPrune(balls.length);
+            for (int i = 0; i < size; i++) {
+                ballCollisions.slotAdded(i);
+            }
+        }
+    }
+
+    /**
+     * Sets whether the balls step by events: each ball queries the static collidables once for its next impact,
+     * and on the ticks before it only checks the moving collidables. This saves most of the collision queries when
+     * the balls fly far between hits. The results are the same either way.
+     * @param enabled true to step by events
+     */
+    public void setEventDriven(boolean enabled) {
+        if (!enabled) {
+            impacts = null;
+            return;
+        }
+        if (impacts == null) {
+            impacts = new ImpactSchedule(balls.length);
+            for (int i = 0; i < size; i++) {
+                impacts.slotAdded(i);
+            }
+        }
+    }
+
+    /**
+     * Sets whether every ball keeps a cache of the static collidables around its recent path, and queries only
+     * those while it stays in the cached area and the environment does not change. This keeps the cost of a query
+     * flat however large the level is. The results are the same either way.
+     * @param enabled true to cache candidates
+     */
+    public void setCandidateCaching(boolean enabled) {
+        if (!enabled) {
+            caches = null;
+            return;
+        }
+        if (caches == null) {
+            caches = new CandidateCache[balls.length];
+            for (int i = 0; i < size; i++) {
+                caches[i] = new CandidateCache(environment);
+            }
+        }
+    }
+
+    /**
+     * Moves the state of a ball into the system.
+     * @param ball the ball to add, which must not belong to another system
+     */
+    public void addBall(Ball ball) {
+        if (ball.getSystem() != null) {
+            throw new IllegalArgumentException("the ball already belongs to a ball system");
+        }
+        if (size == balls.length) {
+            grow();
+        }
+        Point center = ball.getCenter();
+        Velocity velocity = ball.getVelocity();
+        int i = size++;
+        balls[i] = ball;
+        x[i] = center.getX();
+        y[i] = center.getY();
+        previousX[i] = x[i];
+        previousY[i] = y[i];
+        dx[i] = velocity.getDx();
+        dy[i] = velocity.getDy();
+        radius[i] = ball.getSize();
+        color[i] = ball.getColor();
+        removed[i] = false;
+        ball.bind(this, i);
+        if (ballCollisions != null) {
+            ballCollisions.slotAdded(i);
+        }
+        if (impacts != null) {
+            impacts.slotAdded(i);
+        }
+        if (caches != null) {
+            caches[i] = new CandidateCache(environment);
+        }
+    }
+
+    /**
+     * Removes a ball from the system and gives it back its own state.
+     * A ball removed while the system is stepping stays in its slot, skipped, until the step ends.
+     * @param ball the ball to remove
+     */
+    public void removeBall(Ball ball) {
+        if (ball.getSystem() != this) {
+            return;
+        }
+        int i = ball.getSlot();
+        ball.unbind(x[i], y[i], dx[i], dy[i]);
+        removed[i] = true;
+        if (stepping) {
+            hasRemoved = true;
+        } else {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the number of balls in the system.
+     * @return the number of balls
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x coordinate of the center of the ball in the given slot.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the x coordinate
+     */
+    public double getX(int slot) {
+        return x[slot];
+    }
+
+    /**
+     * Returns the y coordinate of the center of the ball in the given slot.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the y coordinate
+     */
+    public double getY(int slot) {
+        return y[slot];
+    }
+
+    /**
+     * Returns the horizontal velocity of the ball in the given slot.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the horizontal velocity
+     */
+    public double getDx(int slot) {
+        return dx[slot];
+    }
+
+    /**
+     * Returns the vertical velocity of the ball in the given slot.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the vertical velocity
+     */
+    public double getDy(int slot) {
+        return dy[slot];
+    }
+
+    /**
+     * Returns the x coordinate of the center of the ball in the given slot before the last time step.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the previous x coordinate
+     */
+    public double getPreviousX(int slot) {
+        return previousX[slot];
+    }
+
+    /**
+     * Returns the y coordinate of the center of the ball in the given slot before the last time step.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the previous y coordinate
+     */
+    public double getPreviousY(int slot) {
+        return previousY[slot];
+    }
+
+    /**
+     * Returns the radius of the ball in the given slot.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the radius
+     */
+    public int getRadius(int slot) {
+        return radius[slot];
+    }
+
+    /**
+     * Returns the color of the ball in the given slot.
+     * @param slot the slot of the ball, between 0 and size() - 1
+     * @return the color
+     */
+    public Color getColor(int slot) {
+        return color[slot];
+    }
+
+    /**
+     * Returns a hash of the positions and velocities of all the balls in the system, in slot order.
+     * Two systems that were stepped the same way have the same hash.
+     * @return the state hash
+     */
+    public long stateHash() {
+        long hash = size;
+        for (int i = 0; i < size; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            hash = 31 * hash + Double.doubleToLongBits(x[i]);
+            hash = 31 * hash + Double.doubleToLongBits(y[i]);
+            hash = 31 * hash + Double.doubleToLongBits(dx[i]);
+            hash = 31 * hash + Double.doubleToLongBits(dy[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * Advances every ball in the system one step.
+     */
+    public void stepAll() {
+        stepping = true;
+        int count = size;
+        System.arraycopy(x, 0, previousX, 0, count);
+        System.arraycopy(y, 0, previousY, 0, count);
+        if (impacts != null) {
+            stepByEvents(count);
+        } else if (parallel && count >= PARALLEL_THRESHOLD) {
+            long version = environment.getModificationCount();
+            IntStream.range(0, count).parallel().forEach(i -> pending[i] = query(i));
+            for (int i = 0; i < count; i++) {
+                CollisionInfo collisionInfo = pending[i];
+                pending[i] = null;
+                if (removed[i]) {
+                    continue;
+                }
+                if (environment.getModificationCount() != version) {
+                    collisionInfo = query(i);
+                }
+                resolve(i, collisionInfo);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                if (!removed[i]) {
+                    step(i);
+                }
+            }
+        }
+        stepping = false;
+        if (hasRemoved) {
+            compact();
+        }
+        if (ballCollisions != null) {
+            ballCollisions.collide(x, y, dx, dy, radius);
+        }
+    }
+
+    /**
+     * Advances the balls one step, querying the environment only for the balls the impact schedule picked and the
+     * ones about to touch a moving collidable. The others cannot hit anything in this step, so they just move.
+     * @param count the number of slots to step
+     */
+    private void stepByEvents(int count) {
+        boolean[] active = impacts.beginTick(environment, x, y, dx, dy, radius, count);
+        for (int i = 0; i < count; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            if (active[i] || environment.touchesMovingCollidable(x[i], y[i], x[i] + dx[i], y[i] + dy[i],
+                    radius[i])) {
+                step(i);
+            } else {
+                x[i] += dx[i];
+                y[i] += dy[i];
+            }
+        }
+        impacts.endTick();
+    }
+
+    /**
+     * Advances one ball one step.
+     * If the ball collides with any collidable objects, it will change its velocity accordingly.
+     * @param i the slot of the ball
+     */
+    void step(int i) {
+        resolve(i, query(i));
+    }
+
+    /**
+     * Finds the first collision of one ball swept along its whole velocity. Only reads shared state.
+     * @param i the slot of the ball
+     * @return the closest collision, or null
+     */
+    private CollisionInfo query(int i) {
+        return query(i, x[i] + dx[i], y[i] + dy[i]);
+    }
+
+    /**
+     * Finds the first collision of one ball moving from its center to the given point, through the candidate
+     * cache of the ball if it has one.
+     */
+    private CollisionInfo query(int i, double toX, double toY) {
+        if (caches != null) {
+            return caches[i].getClosestCollision(x[i], y[i], toX, toY, radius[i]);
+        }
+        return environment.getClosestCollision(x[i], y[i], toX, toY, radius[i]);
+    }
+
+    /**
+     * Moves one ball through its step, resolving up to Ball.MAX_HITS_PER_STEP hits on the way.
+     * @param i the slot of the ball
+     * @param collisionInfo the first collision of the ball in this step, as returned by query, or null
+     */
+    private void resolve(int i, CollisionInfo collisionInfo) {
+        double remaining = 1;
+        for (int hits = 0; hits < Ball.MAX_HITS_PER_STEP && remaining > 0; hits++) {
+            double stepX = dx[i] * remaining;
+            double stepY = dy[i] * remaining;
+            if (hits > 0) {
+                collisionInfo = query(i, x[i] + stepX, y[i] + stepY);
+            }
+            if (collisionInfo == null) {
+                x[i] += stepX;
+                y[i] += stepY;
+                return;
+            }
+            // Move the ball to where it touches the object, then update the velocity
+            double t = collisionInfo.collisionTime();
+            x[i] += stepX * t;
+            y[i] += stepY * t;
+            remaining *= 1 - t;
+            Velocity newVelocity = collisionInfo.collisionObject().hit(balls[i], collisionInfo.collisionPoint(),
+                    new Velocity(dx[i], dy[i]));
+            if (removed[i]) {
+                return;
+            }
+            if (newVelocity == null) {
+                newVelocity = new Velocity(-dx[i], -dy[i]);
+            }
+            dx[i] = newVelocity.getDx();
+            dy[i] = newVelocity.getDy();
+        }
+    }
+
+    @Override
+    public void timePassed() {
+        stepAll();
+    }
+
+    /**
+     * Draws all the balls in the system on the given DrawSurface.
+     * @param d the DrawSurface on which to draw the balls
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        drawOn(d, 1);
+    }
+
+    /**
+     * Draws all the balls in the system on the given DrawSurface, between their previous and current centers.
+     * @param d the DrawSurface on which to draw the balls
+     * @param alpha how far between the previous (0) and the current (1) center to draw
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < size; i++) {
+            drawBall(d, i, alpha);
+        }
+    }
+
+    /**
+     * Draws one ball between its previous and current center.
+     * @param d the DrawSurface on which to draw the ball
+     * @param i the slot of the ball
+     * @param alpha how far between the previous (0) and the current (1) center to draw
+     */
+    void drawBall(DrawSurface d, int i, double alpha) {
+        d.setColor(color[i]);
+        d.fillCircle((int) (previousX[i] + (x[i] - previousX[i]) * alpha),
+                (int) (previousY[i] + (y[i] - previousY[i]) * alpha), radius[i]);
+    }
+
+    /**
+     * Adds the ball system to the game as a sprite.
+     * @param game the game to add the ball system to
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+
+    void setCenter(int i, double newX, double newY) {
+        x[i] = newX;
+        y[i] = newY;
+        if (impacts != null) {
+            impacts.invalidate(i);
+        }
+    }
+
+    void setVelocity(int i, double newDx, double newDy) {
+        dx[i] = newDx;
+        dy[i] = newDy;
+    }
+
+    /**
+     * Fills the slots of removed balls with the last live balls, keeping all live balls at the front.
+     */
+    private void compact() {
+        hasRemoved = false;
+        int i = 0;
+        while (i < size) {
+            if (!removed[i]) {
+                i++;
+                continue;
+            }
+            int last = --size;
+            if (ballCollisions != null) {
+                ballCollisions.slotRemoved(i);
+            }
+            if (impacts != null) {
+                impacts.slotRemoved(i);
+            }
+            if (i != last) {
+                moveSlot(last, i);
+                if (ballCollisions != null) {
+                    ballCollisions.slotMoved(last, i);
+                }
+                if (impacts != null) {
+                    impacts.slotMoved(last, i);
+                }
+            }
+            balls[last] = null;
+            color[last] = null;
+            removed[last] = false;
+            if (caches != null) {
+                caches[last] = null;
+            }
+        }
+    }
+
+    private void moveSlot(int from, int to) {
+        balls[to] = balls[from];
+        x[to] = x[from];
+        y[to] = y[from];
+        previousX[to] = previousX[from];
+        previousY[to] = previousY[from];
+        dx[to] = dx[from];
+        dy[to] = dy[from];
+        radius[to] = radius[from];
+        color[to] = color[from];
+        removed[to] = removed[from];
+        if (caches != null) {
+            caches[to] = caches[from];
+            caches[from] = null;
+        }
+        if (!removed[to]) {
+            balls[to].bind(this, to);
+        }
+    }
+
+    private void grow() {
+        int capacity = balls.length * 2;
+        balls = Arrays.copyOf(balls, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        color = Arrays.copyOf(color, capacity);
+        removed = Arrays.copyOf(removed, capacity);
+        pending = Arrays.copyOf(pending, capacity);
+        if (caches != null) {
+            caches = Arrays.copyOf(caches, capacity);
+        }
+    }
+}
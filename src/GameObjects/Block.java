@@ -4,24 +4,43 @@ import GameSettings.Game;
 import biuoop.DrawSurface;
 
 import java.awt.Color;
-import java.util.ArrayList;
+import java.awt.Graphics2D;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * The Block class represents a rectangular block that can be collided with and drawn on a DrawSurface.
- * It implements both the Collidable and Sprite interfaces.
+ * It implements both the Collidable and Sprite interfaces. A block never moves, so it is a static sprite.
+ * <p>
+ * The hit listeners are kept in an array that is replaced, never changed, when a listener is added or removed, so
+ * notifying them needs no copy even if a listener removes itself. Blocks made by a {@link BlockGroup} start out
+ * sharing the listener array of the group.
  */
-public class Block implements Collidable, Sprite, HitNotifier {
+public class Block implements Collidable, StaticSprite, HitNotifier {
     private Rectangle rect;
-    private List<HitListener> hitListeners;
+    private static final HitListener[] NO_LISTENERS = new HitListener[0];
+
+    private HitListener[] hitListeners;
+    private HitEventBus hitEvents; // the bus hits go through, or null to notify the listeners at once
 
     /**
      * Constructs a Block from a given rectangle.
      * @param rect the rectangle that defines the block.
      */
     public Block(Rectangle rect) {
+        this(rect, NO_LISTENERS, null);
+    }
+
+    /**
+     * Constructs a Block that shares the given listener array until its listeners change.
+     * @param rect the rectangle that defines the block.
+     * @param hitListeners the listener array, which must never be changed.
+     * @param hitEvents the bus hits go through, or null to notify the listeners at once.
+     */
+    Block(Rectangle rect, HitListener[] hitListeners, HitEventBus hitEvents) {
         this.rect = rect;
-        this.hitListeners = new ArrayList<>();
+        this.hitListeners = hitListeners;
+        this.hitEvents = hitEvents;
     }
 
     /**
@@ -47,20 +66,20 @@ public class Block implements Collidable, Sprite, HitNotifier {
         double rectHeight = rect.getHeight();
 
         // Determine whether the collision point is inside the rectangle
-        boolean insideRect = hitX >= rect.getUpperLeft().getX() &&
-                hitX <= rect.getUpperLeft().getX() + rectWidth &&
-                hitY >= rect.getUpperLeft().getY() &&
-                hitY <= rect.getUpperLeft().getY() + rectHeight;
+        boolean insideRect = hitX >= rect.getLeft() &&
+                hitX <= rect.getLeft() + rectWidth &&
+                hitY >= rect.getTop() &&
+                hitY <= rect.getTop() + rectHeight;
 
         if (!insideRect) {
             return null;
         }
 
         // Determine which side of the rectangle was hit
-        boolean hitLeft = Double.compare(hitX, rect.getUpperLeft().getX()) == 0;
-        boolean hitRight = Double.compare(hitX, rect.getUpperLeft().getX() + rectWidth) == 0;
-        boolean hitTop = Double.compare(hitY, rect.getUpperLeft().getY()) == 0;
-        boolean hitBottom = Double.compare(hitY, rect.getUpperLeft().getY() + rectHeight) == 0;
+        boolean hitLeft = Double.compare(hitX, rect.getLeft()) == 0;
+        boolean hitRight = Double.compare(hitX, rect.getLeft() + rectWidth) == 0;
+        boolean hitTop = Double.compare(hitY, rect.getTop()) == 0;
+        boolean hitBottom = Double.compare(hitY, rect.getTop() + rectHeight) == 0;
 
         // Calculate the new velocity based on which side was hit
         double dx = currentVelocity.getDx();
@@ -84,8 +103,8 @@ public class Block implements Collidable, Sprite, HitNotifier {
      */
     @Override
     public void drawOn(DrawSurface d) {
-        int x = (int) rect.getUpperLeft().getX();
-        int y = (int) rect.getUpperLeft().getY();
+        int x = (int) rect.getLeft();
+        int y = (int) rect.getTop();
         int height = (int) rect.getHeight();
         int width = (int) rect.getWidth();
         Color color = rect.getColor();
@@ -95,6 +114,31 @@ public class Block implements Collidable, Sprite, HitNotifier {
         d.drawRectangle(x, y, width, height);
     }
 
+    /**
+     * Draws the block with the given graphics, the same way it is drawn on a DrawSurface.
+     * @param g the graphics to draw the block with.
+     */
+    @Override
+    public void drawOn(Graphics2D g) {
+        int x = (int) rect.getLeft();
+        int y = (int) rect.getTop();
+        int height = (int) rect.getHeight();
+        int width = (int) rect.getWidth();
+        g.setColor(rect.getColor());
+        g.fillRect(x, y, width, height);
+        g.setColor(Color.BLACK);
+        g.drawRect(x, y, width, height);
+    }
+
+    /**
+     * Returns the area the block covers.
+     * @return the rectangle of the block.
+     */
+    @Override
+    public Rectangle getBounds() {
+        return rect;
+    }
+
     /**
      * Does nothing on time passed (implemented from the Sprite interface).
      */
@@ -105,9 +149,12 @@ public class Block implements Collidable, Sprite, HitNotifier {
 
     /**
      * Adds the block to a game as both a collidable and a sprite.
+     * From now on the hits of the block go through the event bus of the game, which hands them to the listeners at
+     * the end of the tick if the game defers its hits, and at once otherwise.
      * @param game the game to add the block to.
      */
     public void addToGame(Game game) {
+        this.hitEvents = game.getHitEvents();
         game.addCollidable(this);
         game.addSprite(this);
     }
@@ -127,7 +174,9 @@ public class Block implements Collidable, Sprite, HitNotifier {
      */
     @Override
     public void addHitListener(HitListener hl) {
-        hitListeners.add(hl);
+        HitListener[] listeners = Arrays.copyOf(hitListeners, hitListeners.length + 1);
+        listeners[hitListeners.length] = hl;
+        hitListeners = listeners;
     }
 
     /**
@@ -136,25 +185,48 @@ public class Block implements Collidable, Sprite, HitNotifier {
      */
     @Override
     public void removeHitListener(HitListener hl) {
-        hitListeners.remove(hl);
+        for (int i = 0; i < hitListeners.length; i++) {
+            if (hitListeners[i] == hl) {
+                HitListener[] listeners = new HitListener[hitListeners.length - 1];
+                System.arraycopy(hitListeners, 0, listeners, 0, i);
+                System.arraycopy(hitListeners, i + 1, listeners, i, listeners.length - i);
+                hitListeners = listeners;
+                return;
+            }
+        }
     }
 
     /**
-     * Notifies all registered hit listeners about a hit event.
+     * Notifies the hit listeners about a hit event, through the event bus of the game if the block has one.
      * @param hitter the ball that hit the block.
      */
     private void notifyHit(Ball hitter) {
-        List<HitListener> listeners = new ArrayList<>(hitListeners);
+        if (hitListeners.length == 0) {
+            return;
+        }
+        if (hitEvents != null) {
+            hitEvents.publish(this, hitter);
+        } else {
+            dispatchHit(hitter);
+        }
+    }
+
+    /**
+     * Calls every current hit listener about a hit event.
+     * @param hitter the ball that hit the block.
+     */
+    void dispatchHit(Ball hitter) {
+        HitListener[] listeners = hitListeners;
         for (HitListener hl : listeners) {
             hl.hitEvent(this, hitter);
         }
     }
 
     /**
-     * Returns the list of hit listeners.
+     * Returns a copy of the list of hit listeners.
      * @return the list of hit listeners.
      */
     public List<HitListener> getHitListeners() {
-        return hitListeners;
+        return Arrays.asList(hitListeners.clone());
     }
 }
@@ -0,0 +1,66 @@
+package GameObjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BlockGroup class makes blocks that all start with the same hit listeners, such as the removable, scoring
+ * blocks of a level.
+ * <p>
+ * The blocks of a group share one listener array instead of holding a list each. A block only gets its own array
+ * if its listeners change, for example when a BlockRemover removes itself from a block that was hit.
+ * The blocks are collected in the group, so they can be added to a game in one call to
+ * {@link GameSettings.Game#addBlocks(List)}.
+ */
+public class BlockGroup {
+    private final HitListener[] listeners;
+    private final HitEventBus hitEvents;
+    private final List<Block> blocks;
+
+    /**
+     * Constructs a group whose blocks notify the given listeners at once when they are hit.
+     * @param listeners the listeners of every block in the group
+     */
+    public BlockGroup(HitListener... listeners) {
+        this(null, listeners);
+    }
+
+    /**
+     * Constructs a group whose blocks send their hits through the given event bus.
+     * @param hitEvents the bus hits go through, or null to notify the listeners at once
+     * @param listeners the listeners of every block in the group
+     */
+    public BlockGroup(HitEventBus hitEvents, HitListener... listeners) {
+        this.listeners = listeners.clone();
+        this.hitEvents = hitEvents;
+        this.blocks = new ArrayList<>();
+    }
+
+    /**
+     * Makes a new block in the group.
+     * @param rect the rectangle that defines the block
+     * @return the new block
+     */
+    public Block newBlock(Rectangle rect) {
+        Block block = new Block(rect, listeners, hitEvents);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Returns the blocks made by the group, in the order they were made.
+     * @return the blocks of the group
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns the listeners every block of the group starts with.
+     * @return a copy of the listeners
+     */
+    public List<HitListener> getHitListeners() {
+        return Arrays.asList(listeners.clone());
+    }
+}
@@ -22,4 +22,13 @@ public interface Collidable {
      */
     Velocity hit(Ball hitter, Point collisionPoint,
                  Velocity currentVelocity);
-}
\ No newline at end of file
+
+    /**
+     * Returns whether the collision rectangle of the object can change after it was added to the game.
+     * Moving objects are not spatially indexed by the game environment.
+     * @return true if the object moves, false otherwise
+     */
+    default boolean isMoving() {
+        return false;
+    }
+}
\ No newline at end of file
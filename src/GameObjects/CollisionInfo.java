@@ -18,6 +18,11 @@ public class CollisionInfo {
      */
     private Collidable collisionObject;
 
+    /**
+     * The fraction of the trajectory travelled when the collision occurred, or NaN if unknown.
+     */
+    private double collisionTime;
+
     /**
      * Constructs a new GameSettings.Game.GameObjects.Collidable.GameObjects.CollisionInfo object with the specified collision point and collidable object.
      * @param collisionPoint the point at which the collision occurred
@@ -26,6 +31,19 @@ public class CollisionInfo {
     public CollisionInfo(Point collisionPoint, Collidable collisionObject) {
         this.collisionPoint = collisionPoint;
         this.collisionObject = collisionObject;
+        this.collisionTime = Double.NaN;
+    }
+
+    /**
+     * Constructs a new CollisionInfo object that also records when along the trajectory the collision occurred.
+     * @param collisionPoint the point at which the collision occurred
+     * @param collisionObject the collidable object that was collided with
+     * @param collisionTime the fraction of the trajectory travelled when the collision occurred, from 0 to 1
+     */
+    public CollisionInfo(Point collisionPoint, Collidable collisionObject, double collisionTime) {
+        this.collisionPoint = collisionPoint;
+        this.collisionObject = collisionObject;
+        this.collisionTime = collisionTime;
     }
 
     /**
@@ -43,4 +61,12 @@ public class CollisionInfo {
     public Collidable collisionObject() {
         return collisionObject;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the fraction of the trajectory travelled when the collision occurred.
+     * @return the collision time from 0 to 1, or NaN if unknown
+     */
+    public double collisionTime() {
+        return collisionTime;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package GameObjects;
+
+import GameSettings.GameProfiler;
+
+/**
+ * The HitEventBus class carries the hits of the blocks of a game to their hit listeners. A deferring bus queues the
+ * hits of a game tick and hands them to the listeners in one batch, after every ball has moved; otherwise it hands
+ * every hit on at once, timing the listeners for the profiler of the game, if there is one.
+ * <p>
+ * Events are stored as (block, ball) pairs in preallocated parallel arrays used as a ring, so publishing a hit
+ * only writes two references. While deferring, the collision step never runs listener code, and listeners that
+ * remove blocks or balls do so between ticks, when nothing is iterating the game.
+ * <p>
+ * A ball that hits the same block more than once in a tick produces a single event, as it did when the listeners
+ * removed the block or the ball at the first hit. Different balls hitting the same block in one tick each produce
+ * an event.
+ * <p>
+ * The bus belongs to the game thread: it is filled while the balls move and drained at the end of the tick.
+ * <p>
+ * Deferring hits changes how a tick plays: a block that will be removed still stands for the rest of the tick, so
+ * two balls hitting it in the same tick both bounce off it and both score, and a ball that touches the death region
+ * keeps moving until the tick ends. A game therefore only lets its bus defer when asked to, with
+ * {@link GameSettings.Game#setDeferredHits(boolean)}; otherwise every hit reaches the listeners at once.
+ */
+public class HitEventBus {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private Block[] blocks;
+    private Ball[] hitters;
+    private int head;
+    private int size;
+    private boolean deferring;
+    private boolean notifying;     // whether listeners of a hit handed on at once are running
+    private GameProfiler profiler;
+
+    /**
+     * Constructs an empty event bus, which defers hits.
+     */
+    public HitEventBus() {
+        this.blocks = new Block[INITIAL_CAPACITY];
+        this.hitters = new Ball[INITIAL_CAPACITY];
+        this.deferring = true;
+    }
+
+    /**
+     * Sets whether hits are queued until {@link #dispatchAll()} or handed to the listeners at once.
+     * @param enabled true to queue hits
+     */
+    public void setDeferring(boolean enabled) {
+        this.deferring = enabled;
+    }
+
+    /**
+     * Returns whether hits are queued until {@link #dispatchAll()}.
+     * @return true if hits are deferred
+     */
+    public boolean isDeferring() {
+        return this.deferring;
+    }
+
+    /**
+     * Sets the profiler the time of the listeners of hits handed on at once is recorded to.
+     * @param gameProfiler the profiler, or null to stop timing the listeners
+     */
+    public void setProfiler(GameProfiler gameProfiler) {
+        this.profiler = gameProfiler;
+    }
+
+    /**
+     * Queues a hit, unless the same ball already hit the same block since the last dispatch. If the bus does not
+     * defer, hands the hit to the listeners of the block at once instead.
+     * @param block the block that was hit
+     * @param hitter the ball that hit the block
+     */
+    public void publish(Block block, Ball hitter) {
+        if (!deferring) {
+            notifyNow(block, hitter);
+            return;
+        }
+        int mask = blocks.length - 1;
+        // The hits of one ball are published one after the other, so earlier hits by it are at the tail
+        for (int i = size - 1; i >= 0; i--) {
+            int index = (head + i) & mask;
+            if (hitters[index] != hitter) {
+                break;
+            }
+            if (blocks[index] == block) {
+                return;
+            }
+        }
+        if (size == blocks.length) {
+            grow();
+            mask = blocks.length - 1;
+        }
+        int index = (head + size) & mask;
+        blocks[index] = block;
+        hitters[index] = hitter;
+        size++;
+    }
+
+    /**
+     * Hands every queued hit to the listeners its block has now, in the order the hits happened.
+     * Hits published by the listeners themselves are dispatched too, before this method returns.
+     * @return the number of hits dispatched
+     */
+    public int dispatchAll() {
+        int dispatched = 0;
+        while (size > 0) {
+            int mask = blocks.length - 1;
+            Block block = blocks[head];
+            Ball hitter = hitters[head];
+            blocks[head] = null;
+            hitters[head] = null;
+            head = (head + 1) & mask;
+            size--;
+            block.dispatchHit(hitter);
+            dispatched++;
+        }
+        head = 0;
+        return dispatched;
+    }
+
+    /**
+     * Returns the number of hits waiting to be dispatched.
+     * @return the number of queued hits
+     */
+    public int size() {
+        return size;
+    }
+
+    private void notifyNow(Block block, Ball hitter) {
+        GameProfiler p = this.profiler;
+        // a hit caused by a listener is timed as part of the hit that is being notified
+        if (p == null || notifying) {
+            block.dispatchHit(hitter);
+            return;
+        }
+        notifying = true;
+        long start = System.nanoTime();
+        block.dispatchHit(hitter);
+        p.recordDispatch(System.nanoTime() - start);
+        notifying = false;
+    }
+
+    private void grow() {
+        int capacity = blocks.length;
+        Block[] newBlocks = new Block[capacity * 2];
+        Ball[] newHitters = new Ball[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            newBlocks[i] = blocks[(head + i) & (capacity - 1)];
+            newHitters[i] = hitters[(head + i) & (capacity - 1)];
+        }
+        blocks = newBlocks;
+        hitters = newHitters;
+        head = 0;
+    }
+}
@@ -0,0 +1,284 @@
+package GameObjects;
+
+import GameSettings.GameEnvironment;
+
+import java.util.Arrays;
+
+/**
+ * The ImpactSchedule class lets a ball system step its balls by events instead of querying the collisions of
+ * every ball on every tick.
+ * <p>
+ * Between hits a ball moves in a straight line, so one query of the static collidables along a long stretch of
+ * its path tells on which tick it will hit one of them next. The stretch a ball looks ahead starts at
+ * MIN_HORIZON ticks, doubles after every prediction that hits nothing, up to MAX_HORIZON ticks, and shrinks to
+ * about twice the distance of the last impact, so balls in crowded areas do not pay for long queries that always
+ * stop early. Every ball is kept in a
+ * priority queue by the tick on which it has to be looked at again: MARGIN ticks before its predicted impact, or
+ * shortly before the end of its horizon if it hits nothing. On the other ticks the ball is only tested against
+ * the few moving collidables, such as the paddle, whose position cannot be predicted, and moves on if it misses
+ * them. A ball whose turn comes, or that is about to hit a moving collidable, is stepped with a regular query.
+ * A ball whose turn came is predicted again on the next tick.
+ * <p>
+ * A prediction only holds while nothing changes on its path, so it is thrown away when the collidable it predicted
+ * is removed, for example by a BlockRemover, when any collidable is added, and when the velocity or center of the
+ * ball is changed.
+ * <p>
+ * The predictions are kept by slot number. The ball system reports every slot it adds, removes or moves.
+ */
+public class ImpactSchedule {
+    /**
+     * The fewest ticks of path a prediction covers.
+     */
+    public static final int MIN_HORIZON = 8;
+    /**
+     * The most ticks of path a prediction covers.
+     */
+    public static final int MAX_HORIZON = 256;
+    // how many ticks before a predicted impact a ball is stepped with regular queries, against rounding
+    private static final int MARGIN = 1;
+
+    private long tick;
+    private long[] due;          // the tick on which every slot has to be looked at again
+    private int[] horizon;       // the number of ticks the next prediction of every slot covers
+    private Collidable[] target; // the collidable every slot is predicted to hit, or null
+    private double[] velocity;   // the velocity every slot was predicted with, 2 values per slot
+    private boolean[] active;    // whether a slot is stepped with regular queries on this tick
+    private int[] heap;          // the slots, ordered by due tick
+    private int[] heapIndex;     // the index of every slot in heap, or -1
+    private int heapSize;
+    private int[] taken;         // the slots taken from the heap on this tick
+    private long modificationCount = -1;
+    private long additionCount = -1;
+
+    /**
+     * Constructs an empty schedule, for a ball system of the given capacity.
+     * @param capacity the number of slots of the ball system
+     */
+    public ImpactSchedule(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Records a new ball in the given slot. It is predicted on the next tick.
+     * @param slot the slot of the new ball
+     */
+    void slotAdded(int slot) {
+        if (slot >= due.length) {
+            grow(Math.max(due.length * 2, slot + 1));
+        }
+        target[slot] = null;
+        active[slot] = false;
+        horizon[slot] = MIN_HORIZON;
+        due[slot] = tick;
+        heapIndex[slot] = -1;
+        push(slot);
+    }
+
+    /**
+     * Forgets the ball in the given slot.
+     * @param slot the slot of the removed ball
+     */
+    void slotRemoved(int slot) {
+        if (heapIndex[slot] >= 0) {
+            removeAt(heapIndex[slot]);
+        }
+        target[slot] = null;
+    }
+
+    /**
+     * Records that the ball in one slot moved to another one.
+     * @param from the slot the ball was in
+     * @param to the slot the ball is in now
+     */
+    void slotMoved(int from, int to) {
+        due[to] = due[from];
+        horizon[to] = horizon[from];
+        target[to] = target[from];
+        target[from] = null;
+        velocity[2 * to] = velocity[2 * from];
+        velocity[2 * to + 1] = velocity[2 * from + 1];
+        active[to] = active[from];
+        active[from] = false;
+        int index = heapIndex[from];
+        heapIndex[from] = -1;
+        heapIndex[to] = index;
+        if (index >= 0) {
+            heap[index] = to;
+        }
+    }
+
+    /**
+     * Throws away the prediction of a ball, so it is predicted again on the next tick.
+     * @param slot the slot of the ball
+     */
+    void invalidate(int slot) {
+        if (heapIndex[slot] >= 0 && due[slot] > tick) {
+            due[slot] = tick;
+            siftUp(heapIndex[slot]);
+        }
+    }
+
+    /**
+     * Prepares a tick: throws away the predictions that no longer hold, predicts the balls whose turn came, and
+     * marks the ones that are stepped with a regular query on this tick.
+     * @param environment the environment the balls collide with
+     * @param count the number of slots in use
+     * @return whether a slot is stepped with a regular query on this tick, by slot
+     */
+    boolean[] beginTick(GameEnvironment environment, double[] x, double[] y, double[] dx, double[] dy,
+                        int[] radius, int count) {
+        checkEnvironment(environment, count);
+        for (int i = 0; i < count; i++) {
+            if (dx[i] != velocity[2 * i] || dy[i] != velocity[2 * i + 1]) {
+                invalidate(i);
+            }
+        }
+        int takenCount = 0;
+        while (heapSize > 0 && due[heap[0]] <= tick) {
+            int slot = heap[0];
+            removeAt(0);
+            taken[takenCount++] = slot;
+        }
+        for (int k = 0; k < takenCount; k++) {
+            int slot = taken[k];
+            predict(environment, slot, x[slot], y[slot], dx[slot], dy[slot], radius[slot]);
+            // a ball close to its impact is stepped with a regular query, and predicted again on the next tick
+            active[slot] = due[slot] <= tick;
+            if (active[slot]) {
+                due[slot] = tick + 1;
+            }
+            push(slot);
+        }
+        return active;
+    }
+
+    /**
+     * Ends a tick.
+     */
+    void endTick() {
+        Arrays.fill(active, false);
+        tick++;
+    }
+
+    private void predict(GameEnvironment environment, int slot, double x, double y, double dx, double dy,
+                         int radius) {
+        int ahead = horizon[slot];
+        double endX = x + dx * ahead;
+        double endY = y + dy * ahead;
+        CollisionInfo impact = environment.getClosestStaticCollision(x, y, endX, endY, radius);
+        double ticks = ahead;
+        target[slot] = null;
+        if (impact != null) {
+            ticks = impact.collisionTime() * ahead;
+            target[slot] = impact.collisionObject();
+            horizon[slot] = Math.max(MIN_HORIZON, Math.min(MAX_HORIZON, Integer.highestOneBit((int) ticks) * 2));
+        } else {
+            horizon[slot] = Math.min(MAX_HORIZON, ahead * 2);
+        }
+        due[slot] = tick + Math.max(0, (long) Math.floor(ticks) - MARGIN);
+        velocity[2 * slot] = dx;
+        velocity[2 * slot + 1] = dy;
+    }
+
+    /**
+     * Throws away every prediction when a collidable was added, and the ones predicting a removed collidable.
+     */
+    private void checkEnvironment(GameEnvironment environment, int count) {
+        if (environment.getModificationCount() == modificationCount) {
+            return;
+        }
+        modificationCount = environment.getModificationCount();
+        boolean added = environment.getAdditionCount() != additionCount;
+        additionCount = environment.getAdditionCount();
+        for (int i = 0; i < count; i++) {
+            if (added || (target[i] != null && !environment.contains(target[i]))) {
+                invalidate(i);
+            }
+        }
+    }
+
+    private void push(int slot) {
+        int index = heapSize++;
+        heap[index] = slot;
+        heapIndex[slot] = index;
+        siftUp(index);
+    }
+
+    private void removeAt(int index) {
+        int slot = heap[index];
+        heapIndex[slot] = -1;
+        int last = heap[--heapSize];
+        if (index == heapSize) {
+            return;
+        }
+        heap[index] = last;
+        heapIndex[last] = index;
+        siftDown(index);
+        siftUp(heapIndex[last]);
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heapIndex[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = slot;
+        heapIndex[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], slot)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = slot;
+        heapIndex[slot] = index;
+    }
+
+    private boolean before(int a, int b) {
+        return due[a] < due[b] || (due[a] == due[b] && a < b);
+    }
+
+    private void allocate(int capacity) {
+        due = new long[capacity];
+        horizon = new int[capacity];
+        target = new Collidable[capacity];
+        velocity = new double[2 * capacity];
+        active = new boolean[capacity];
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+        taken = new int[capacity];
+        Arrays.fill(heapIndex, -1);
+    }
+
+    private void grow(int capacity) {
+        int old = due.length;
+        due = Arrays.copyOf(due, capacity);
+        horizon = Arrays.copyOf(horizon, capacity);
+        target = Arrays.copyOf(target, capacity);
+        velocity = Arrays.copyOf(velocity, 2 * capacity);
+        active = Arrays.copyOf(active, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        heapIndex = Arrays.copyOf(heapIndex, capacity);
+        taken = Arrays.copyOf(taken, capacity);
+        Arrays.fill(heapIndex, old, capacity, -1);
+    }
+}
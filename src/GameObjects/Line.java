@@ -1,7 +1,5 @@
 package GameObjects;
 
-import java.util.List;
-
 /**
  * The Shapes.GameObjects.Line class represents a line segment in a two-dimensional space.
  */
@@ -93,6 +91,18 @@ public class Line {
                 Point.generateRandomPoint(maxX, maxY));
     }
 
+    /**
+     * Returns a randomly generated Shapes.GameObjects.Line object, drawn from the given random generator.
+     * @param maxX the maximum x-axis position of the point
+     * @param maxY the maximum y-axis position of the point
+     * @param random the random generator to draw the points from
+     * @return a randomly generated Shapes.GameObjects.Line object.
+     */
+    public static Line generateRandomLine(final int maxX, final int maxY, final java.util.Random random) {
+        return new Line(Point.generateRandomPoint(maxX, maxY, random),
+                Point.generateRandomPoint(maxX, maxY, random));
+    }
+
     /**
      * Returns the intersection point of the line segment with
      * another line segment.
@@ -156,27 +166,15 @@ public class Line {
      * @return the closest intersection point to the start of the line, or null if there is no intersection
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect) {
-        // Get a list of all the intersection points between the line and the rectangle
-        List<Point> intersectionPoints = rect.intersectionPoints(this);
-
-        // If there are no intersection points, return null
-        if (intersectionPoints.isEmpty()) {
+        double x1 = start.getX();
+        double y1 = start.getY();
+        double x2 = end.getX();
+        double y2 = end.getY();
+        double t = RayCast.entryTime(x1, y1, x2, y2, rect);
+        if (t == RayCast.MISS) {
             return null;
         }
-
-        // Otherwise, find the closest intersection point to the start of the line
-        double minDistance = Double.MAX_VALUE;
-        Point closestPoint = null;
-
-        for (Point intersectionPoint : intersectionPoints) {
-            double distance = intersectionPoint.distance(this.start);
-            if (distance < minDistance) {
-                minDistance = distance;
-                closestPoint = intersectionPoint;
-            }
-        }
-
-        return closestPoint;
+        return RayCast.pointAt(x1, y1, x2, y2, rect, t);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,111 @@
+package GameObjects;
+
+/**
+ * The MutableVec2 class is a two-dimensional vector that is changed in place.
+ * <p>
+ * It is used for positions and velocities on the per-tick path, where allocating a new Point or Velocity on every
+ * step would create garbage. The public API keeps returning the immutable Point and Velocity.
+ */
+public class MutableVec2 {
+    private double x;
+    private double y;
+
+    /**
+     * Constructs a zero vector.
+     */
+    public MutableVec2() {
+    }
+
+    /**
+     * Constructs a vector with the given components.
+     * @param x the x component
+     * @param y the y component
+     */
+    public MutableVec2(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Returns the x component.
+     * @return the x component
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y component.
+     * @return the y component
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Sets both components.
+     * @param newX the new x component
+     * @param newY the new y component
+     * @return this vector
+     */
+    public MutableVec2 set(double newX, double newY) {
+        this.x = newX;
+        this.y = newY;
+        return this;
+    }
+
+    /**
+     * Sets both components to those of another vector.
+     * @param other the vector to copy
+     * @return this vector
+     */
+    public MutableVec2 set(MutableVec2 other) {
+        return set(other.x, other.y);
+    }
+
+    /**
+     * Adds the given components to this vector.
+     * @param dx the value added to the x component
+     * @param dy the value added to the y component
+     * @return this vector
+     */
+    public MutableVec2 add(double dx, double dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    /**
+     * Adds another vector, multiplied by a factor, to this vector.
+     * @param other the vector to add
+     * @param factor the factor the other vector is multiplied by
+     * @return this vector
+     */
+    public MutableVec2 addScaled(MutableVec2 other, double factor) {
+        return add(other.x * factor, other.y * factor);
+    }
+
+    /**
+     * Reverses the direction of this vector.
+     * @return this vector
+     */
+    public MutableVec2 negate() {
+        return set(-x, -y);
+    }
+
+    /**
+     * Returns a Point with the components of this vector.
+     * @return a new point
+     */
+    public Point toPoint() {
+        return new Point(x, y);
+    }
+
+    /**
+     * Returns a Velocity with the components of this vector.
+     * @return a new velocity
+     */
+    public Velocity toVelocity() {
+        return new Velocity(x, y);
+    }
+}
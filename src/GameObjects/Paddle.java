@@ -17,6 +17,7 @@ public class Paddle implements Sprite, Collidable {
     private KeyboardSensor keyboard; // The keyboard sensor used to control the paddle's movement
     private Rectangle paddleRectangle; // The rectangle representing the paddle's position and size
     private int speed; // The speed at which the paddle moves
+    private double previousX; // The x-coordinate of the paddle before the last time step
     private static final int NUM_REGIONS = 5; // The number of regions that the paddle is divided into for ball collision detection
 
 
@@ -31,6 +32,7 @@ public class Paddle implements Sprite, Collidable {
     public Paddle(Point upperLeft, double width, double height, Color color, KeyboardSensor keyboard) {
         this.paddleRectangle = new Rectangle(upperLeft, width, height, color);
         this.keyboard = keyboard;
+        this.previousX = upperLeft.getX();
         this.speed = 5; // set the default speed to 5
     }
 
@@ -38,15 +40,21 @@ public class Paddle implements Sprite, Collidable {
      * Moves the paddle to the left.
      */
     public void moveLeft() {
+        moveLeft(this.speed);
+    }
+
+    /**
+     * Moves the paddle to the left by the given distance.
+     * @param distance how far to move, in pixels
+     */
+    private void moveLeft(double distance) {
         // Calculate the new x-coordinate of the upper left corner of the paddle's rectangle
-        double newX = this.paddleRectangle.getUpperLeft().getX() - this.speed;
+        double newX = this.paddleRectangle.getLeft() - distance;
 
         // Check if the new x-coordinate is within the game boundaries (at least 30 pixels away from the left edge)
         if (newX >= 35) {
-            // Create a new rectangle with the updated x-coordinate
-            this.paddleRectangle = new Rectangle(new Point(newX, this.paddleRectangle.getUpperLeft().getY()),
-                    this.paddleRectangle.getWidth(), this.paddleRectangle.getHeight(),
-                    this.getCollisionRectangle().getColor());
+            // Move the rectangle in place to the updated x-coordinate
+            this.paddleRectangle.moveTo(newX, this.paddleRectangle.getTop());
         }
     }
 
@@ -54,23 +62,44 @@ public class Paddle implements Sprite, Collidable {
      * Moves the paddle to the right.
      */
     public void moveRight() {
+        moveRight(this.speed);
+    }
+
+    /**
+     * Moves the paddle to the right by the given distance.
+     * @param distance how far to move, in pixels
+     */
+    private void moveRight(double distance) {
         // Calculate the new x-coordinate of the upper left corner of the paddle's rectangle
-        double newX = this.paddleRectangle.getUpperLeft().getX() + this.speed;
+        double newX = this.paddleRectangle.getLeft() + distance;
 
         // Check if the new x-coordinate is within the game boundaries (at most 770 pixels away from the left edge)
         if (newX + this.paddleRectangle.getWidth() <= 765) {
-            // Create a new rectangle with the updated x-coordinate
-            this.paddleRectangle = new Rectangle(new Point(newX, this.paddleRectangle.getUpperLeft().getY()),
-                    this.paddleRectangle.getWidth(), this.paddleRectangle.getHeight(),
-                    this.getCollisionRectangle().getColor());
+            // Move the rectangle in place to the updated x-coordinate
+            this.paddleRectangle.moveTo(newX, this.paddleRectangle.getTop());
         }
     }
 
     /**
      * Called every game tick. Moves the paddle left or right according to the keyboard input.
+     * A tick input that knows for how long each key was held during the tick moves the paddle by that part of its
+     * speed.
      */
     @Override
     public void timePassed() {
+        this.previousX = this.paddleRectangle.getLeft();
+        if (keyboard instanceof TickInput) {
+            TickInput input = (TickInput) keyboard;
+            double left = input.heldFraction(KeyboardSensor.LEFT_KEY);
+            double right = input.heldFraction(KeyboardSensor.RIGHT_KEY);
+            if (left > 0) {
+                moveLeft(this.speed * left);
+            }
+            if (right > 0) {
+                moveRight(this.speed * right);
+            }
+            return;
+        }
         if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
             moveLeft();
         }
@@ -86,26 +115,61 @@ public class Paddle implements Sprite, Collidable {
     @Override
     public void drawOn(DrawSurface d) {
         d.setColor(this.getCollisionRectangle().getColor());
-        d.fillRectangle((int) this.paddleRectangle.getUpperLeft().getX(),
-                (int) this.paddleRectangle.getUpperLeft().getY(),
+        d.fillRectangle((int) this.paddleRectangle.getLeft(),
+                (int) this.paddleRectangle.getTop(),
                 (int) this.paddleRectangle.getWidth(),
                 (int) this.paddleRectangle.getHeight());
         d.setColor(Color.black);
-        d.drawRectangle((int) this.paddleRectangle.getUpperLeft().getX(),
-                (int) this.paddleRectangle.getUpperLeft().getY(),
+        d.drawRectangle((int) this.paddleRectangle.getLeft(),
+                (int) this.paddleRectangle.getTop(),
                 (int) this.paddleRectangle.getWidth(),
                 (int) this.paddleRectangle.getHeight());
     }
 
+    /**
+     * Draws the paddle on the given DrawSurface, between its position before and after the last time step.
+     * @param d The DrawSurface to draw the paddle on.
+     * @param alpha how far between the previous (0) and the current (1) position to draw
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        double currentX = this.paddleRectangle.getLeft();
+        int x = (int) (this.previousX + (currentX - this.previousX) * alpha);
+        int y = (int) this.paddleRectangle.getTop();
+        int width = (int) this.paddleRectangle.getWidth();
+        int height = (int) this.paddleRectangle.getHeight();
+        d.setColor(this.getCollisionRectangle().getColor());
+        d.fillRectangle(x, y, width, height);
+        d.setColor(Color.black);
+        d.drawRectangle(x, y, width, height);
+    }
+
+    /**
+     * Returns the x coordinate of the left edge of the paddle before the last time step.
+     * @return the previous x coordinate of the left edge
+     */
+    public double getPreviousLeft() {
+        return this.previousX;
+    }
+
     // GameSettings.Game.GameObjects.Collidable.GameSettings.Game.GameObjects.Collidable
     public Rectangle getCollisionRectangle() {
         return this.paddleRectangle;
     }
 
+    /**
+     * The paddle moves with the keyboard, so it is never spatially indexed.
+     * @return true
+     */
+    @Override
+    public boolean isMoving() {
+        return true;
+    }
+
     public Velocity hit(Ball hitter, Point collisionPoint,
                         Velocity currentVelocity) {
         double regionWidth = this.paddleRectangle.getWidth() / NUM_REGIONS;
-        double regionLeftX = this.paddleRectangle.getUpperLeft().getX();
+        double regionLeftX = this.paddleRectangle.getLeft();
         double ballSpeed = currentVelocity.getSpeed();
         double ballAngle = currentVelocity.getAngle();
 
@@ -73,8 +73,19 @@ public class Point {
      * @return a random point.
      */
     public static Point generateRandomPoint(int maxX, int maxY) {
-        Random r = new Random();
-        return new Point(r.nextInt(maxX) + 1, r.nextInt(maxY) + 1);
+        return generateRandomPoint(maxX, maxY, new Random());
+    }
+
+    /**
+     * Generates a random point with x and y coordinates between 1 and maxX and 1 and maxY, respectively.
+     * Use a seeded random generator to get the same points again, for example when replaying a game.
+     * @param maxX the maximum x-axis point possible for the point
+     * @param maxY the maximum Y-axis point possible for the point
+     * @param random the random generator to draw the coordinates from
+     * @return a random point.
+     */
+    public static Point generateRandomPoint(int maxX, int maxY, Random random) {
+        return new Point(random.nextInt(maxX) + 1, random.nextInt(maxY) + 1);
     }
 }
 
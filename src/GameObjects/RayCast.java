@@ -0,0 +1,319 @@
+package GameObjects;
+
+/**
+ * The RayCast class holds the segment versus rectangle intersection kernel used on every ball step.
+ * <p>
+ * All methods work on primitive coordinates and never allocate. A segment from (x1, y1) to (x2, y2) is described
+ * by the parameter t, where t = 0 is the start and t = 1 is the end. Edges parallel to the segment are never hit,
+ * and a rectangle corner that is also an end point of the segment is always hit.
+ * <p>
+ * The swept methods test a moving circle instead of a point. The rectangle is grown by the radius of the circle on
+ * every side, and only a center entering the grown rectangle from outside counts as a hit, so a circle touching a
+ * face and moving away from it is never hit again.
+ */
+public final class RayCast {
+    /**
+     * The value returned when the segment misses the rectangle.
+     */
+    public static final double MISS = -1;
+    /**
+     * Flag of a hit on the left edge.
+     */
+    public static final int LEFT = 1;
+    /**
+     * Flag of a hit on the right edge.
+     */
+    public static final int RIGHT = 2;
+    /**
+     * Flag of a hit on the top edge.
+     */
+    public static final int TOP = 4;
+    /**
+     * Flag of a hit on the bottom edge.
+     */
+    public static final int BOTTOM = 8;
+
+    private static final double PARALLEL_EPSILON = 1e-8;
+
+    private RayCast() {
+    }
+
+    /**
+     * Returns the smallest t at which the segment crosses one of the edges of the rectangle.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param rect the rectangle
+     * @return the entry time in [0, 1], or MISS if the segment does not cross any edge
+     */
+    public static double entryTime(double x1, double y1, double x2, double y2, Rectangle rect) {
+        double left = rect.getLeft();
+        double top = rect.getTop();
+        return entryTime(x1, y1, x2, y2, left, top, left + rect.getWidth(), top + rect.getHeight());
+    }
+
+    /**
+     * Returns the smallest t at which the segment crosses one of the edges of the given bounds.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param left the x coordinate of the left edge
+     * @param top the y coordinate of the top edge
+     * @param right the x coordinate of the right edge
+     * @param bottom the y coordinate of the bottom edge
+     * @return the entry time in [0, 1], or MISS if the segment does not cross any edge
+     */
+    public static double entryTime(double x1, double y1, double x2, double y2,
+                                   double left, double top, double right, double bottom) {
+        double best = horizontalEdge(x1, y1, x2, y2, top, left, right);
+        best = earliest(best, verticalEdge(x1, y1, x2, y2, left, top, bottom));
+        best = earliest(best, verticalEdge(x1, y1, x2, y2, right, top, bottom));
+        return earliest(best, horizontalEdge(x1, y1, x2, y2, bottom, left, right));
+    }
+
+    /**
+     * Returns the edges of the rectangle the segment crosses at exactly the given time.
+     * A hit on a corner returns the flags of both edges.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param rect the rectangle
+     * @param t a time returned by entryTime for the same segment and rectangle
+     * @return a combination of the LEFT, RIGHT, TOP and BOTTOM flags
+     */
+    public static int side(double x1, double y1, double x2, double y2, Rectangle rect, double t) {
+        double left = rect.getLeft();
+        double top = rect.getTop();
+        double right = left + rect.getWidth();
+        double bottom = top + rect.getHeight();
+        int side = 0;
+        if (horizontalEdge(x1, y1, x2, y2, top, left, right) == t) {
+            side |= TOP;
+        }
+        if (verticalEdge(x1, y1, x2, y2, left, top, bottom) == t) {
+            side |= LEFT;
+        }
+        if (verticalEdge(x1, y1, x2, y2, right, top, bottom) == t) {
+            side |= RIGHT;
+        }
+        if (horizontalEdge(x1, y1, x2, y2, bottom, left, right) == t) {
+            side |= BOTTOM;
+        }
+        return side;
+    }
+
+    /**
+     * Returns the point at which the segment hits the rectangle.
+     * The coordinate across a hit edge is set to the exact position of that edge.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param rect the rectangle
+     * @param t a time returned by entryTime for the same segment and rectangle
+     * @return the hit point
+     */
+    public static Point pointAt(double x1, double y1, double x2, double y2, Rectangle rect, double t) {
+        int side = side(x1, y1, x2, y2, rect, t);
+        double x = x1 + t * (x2 - x1);
+        double y = y1 + t * (y2 - y1);
+        if ((side & LEFT) != 0) {
+            x = rect.getLeft();
+        } else if ((side & RIGHT) != 0) {
+            x = rect.getLeft() + rect.getWidth();
+        }
+        if ((side & TOP) != 0) {
+            y = rect.getTop();
+        } else if ((side & BOTTOM) != 0) {
+            y = rect.getTop() + rect.getHeight();
+        }
+        return new Point(x, y);
+    }
+
+    /**
+     * Returns the time at which the segment crosses the vertical edge x = ex, between ey1 and ey2.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param ex the x coordinate of the edge
+     * @param ey1 the y coordinate of the upper end of the edge
+     * @param ey2 the y coordinate of the lower end of the edge
+     * @return the time in [0, 1], or MISS
+     */
+    public static double verticalEdge(double x1, double y1, double x2, double y2,
+                                      double ex, double ey1, double ey2) {
+        if (x1 == ex && (y1 == ey1 || y1 == ey2)) {
+            return 0;
+        }
+        if (x2 == ex && (y2 == ey1 || y2 == ey2)) {
+            return 1;
+        }
+        double dx = x2 - x1;
+        if (Math.abs(dx * (ey2 - ey1)) < PARALLEL_EPSILON) {
+            return MISS;
+        }
+        double t = (ex - x1) / dx;
+        if (t < 0 || t > 1) {
+            return MISS;
+        }
+        double y = y1 + t * (y2 - y1);
+        return y >= ey1 && y <= ey2 ? t : MISS;
+    }
+
+    /**
+     * Returns the time at which the segment crosses the horizontal edge y = ey, between ex1 and ex2.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param ey the y coordinate of the edge
+     * @param ex1 the x coordinate of the left end of the edge
+     * @param ex2 the x coordinate of the right end of the edge
+     * @return the time in [0, 1], or MISS
+     */
+    public static double horizontalEdge(double x1, double y1, double x2, double y2,
+                                        double ey, double ex1, double ex2) {
+        if (y1 == ey && (x1 == ex1 || x1 == ex2)) {
+            return 0;
+        }
+        if (y2 == ey && (x2 == ex1 || x2 == ex2)) {
+            return 1;
+        }
+        double dy = y2 - y1;
+        if (Math.abs(dy * (ex2 - ex1)) < PARALLEL_EPSILON) {
+            return MISS;
+        }
+        double t = (ey - y1) / dy;
+        if (t < 0 || t > 1) {
+            return MISS;
+        }
+        double x = x1 + t * (x2 - x1);
+        return x >= ex1 && x <= ex2 ? t : MISS;
+    }
+
+    /**
+     * Returns the time at which a circle moving along the segment first touches the rectangle.
+     * @param x1 the x coordinate of the center of the circle at the start of the segment
+     * @param y1 the y coordinate of the center of the circle at the start of the segment
+     * @param x2 the x coordinate of the center of the circle at the end of the segment
+     * @param y2 the y coordinate of the center of the circle at the end of the segment
+     * @param radius the radius of the circle
+     * @param left the x coordinate of the left edge
+     * @param top the y coordinate of the top edge
+     * @param right the x coordinate of the right edge
+     * @param bottom the y coordinate of the bottom edge
+     * @return the time of impact in [0, 1], or MISS if the circle does not enter the rectangle on this segment
+     */
+    public static double sweptEntryTime(double x1, double y1, double x2, double y2, double radius,
+                                        double left, double top, double right, double bottom) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        if (dx == 0) {
+            if (x1 < left - radius || x1 > right + radius) {
+                return MISS;
+            }
+        } else {
+            double ta = (left - radius - x1) / dx;
+            double tb = (right + radius - x1) / dx;
+            enter = Math.min(ta, tb);
+            exit = Math.max(ta, tb);
+        }
+        if (dy == 0) {
+            if (y1 < top - radius || y1 > bottom + radius) {
+                return MISS;
+            }
+        } else {
+            double ta = (top - radius - y1) / dy;
+            double tb = (bottom + radius - y1) / dy;
+            enter = Math.max(enter, Math.min(ta, tb));
+            exit = Math.min(exit, Math.max(ta, tb));
+        }
+        if (enter < 0 || enter > 1 || enter > exit) {
+            return MISS;
+        }
+        // turn -0.0 into 0.0
+        return enter + 0.0;
+    }
+
+    /**
+     * Returns the faces of the rectangle a circle moving along the segment touches at the given time.
+     * A hit on a corner returns the flags of both faces.
+     * @param x1 the x coordinate of the center of the circle at the start of the segment
+     * @param y1 the y coordinate of the center of the circle at the start of the segment
+     * @param x2 the x coordinate of the center of the circle at the end of the segment
+     * @param y2 the y coordinate of the center of the circle at the end of the segment
+     * @param radius the radius of the circle
+     * @param rect the rectangle
+     * @param t a time returned by sweptEntryTime for the same segment and rectangle
+     * @return a combination of the LEFT, RIGHT, TOP and BOTTOM flags
+     */
+    public static int sweptSide(double x1, double y1, double x2, double y2, double radius, Rectangle rect,
+                                double t) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double left = rect.getLeft();
+        double top = rect.getTop();
+        int side = 0;
+        if (dx > 0 && (left - radius - x1) / dx == t) {
+            side |= LEFT;
+        } else if (dx < 0 && (left + rect.getWidth() + radius - x1) / dx + 0.0 == t) {
+            side |= RIGHT;
+        }
+        if (dy > 0 && (top - radius - y1) / dy == t) {
+            side |= TOP;
+        } else if (dy < 0 && (top + rect.getHeight() + radius - y1) / dy + 0.0 == t) {
+            side |= BOTTOM;
+        }
+        return side;
+    }
+
+    /**
+     * Returns the point on the surface of the rectangle that a circle moving along the segment touches at the
+     * given time. The coordinate across a touched face is set to the exact position of that face.
+     * @param x1 the x coordinate of the center of the circle at the start of the segment
+     * @param y1 the y coordinate of the center of the circle at the start of the segment
+     * @param x2 the x coordinate of the center of the circle at the end of the segment
+     * @param y2 the y coordinate of the center of the circle at the end of the segment
+     * @param radius the radius of the circle
+     * @param rect the rectangle
+     * @param t a time returned by sweptEntryTime for the same segment and rectangle
+     * @return the contact point
+     */
+    public static Point sweptContactPoint(double x1, double y1, double x2, double y2, double radius,
+                                          Rectangle rect, double t) {
+        int side = sweptSide(x1, y1, x2, y2, radius, rect, t);
+        double left = rect.getLeft();
+        double top = rect.getTop();
+        double right = left + rect.getWidth();
+        double bottom = top + rect.getHeight();
+        double x = Math.max(left, Math.min(right, x1 + t * (x2 - x1)));
+        double y = Math.max(top, Math.min(bottom, y1 + t * (y2 - y1)));
+        if ((side & LEFT) != 0) {
+            x = left;
+        } else if ((side & RIGHT) != 0) {
+            x = right;
+        }
+        if ((side & TOP) != 0) {
+            y = top;
+        } else if ((side & BOTTOM) != 0) {
+            y = bottom;
+        }
+        return new Point(x, y);
+    }
+
+    private static double earliest(double a, double b) {
+        if (a == MISS) {
+            return b;
+        }
+        if (b == MISS) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+}
@@ -7,7 +7,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Rectangle {
-    private Point upperLeft;
+    private double left;
+    private double top;
+    private Point upperLeft; // created on demand from left and top
     private double width;
     private double height;
     private Color color;
@@ -19,6 +21,8 @@ public class Rectangle {
      * @param height the height of the rectangle
      */
     public Rectangle(Point upperLeft, double width, double height, Color color) {
+        this.left = upperLeft.getX();
+        this.top = upperLeft.getY();
         this.upperLeft = upperLeft;
         this.width = width;
         this.height = height;
@@ -27,34 +31,38 @@ public class Rectangle {
 
     /**
      * Return a (possibly empty) list of intersection points with the specified line.
+     * The points are ordered by edge: top, left, right and bottom.
+     * Prefer {@link RayCast#entryTime} on hot paths, it does not allocate.
      * @param line the line to check for intersection with the rectangle
      * @return a list of intersection points with the specified line
      */
     public List<Point> intersectionPoints(Line line) {
         List<Point> intersectionPoints = new ArrayList<>();
-
-        // Get the lines that make up the rectangle's edges
-        Line top = new Line(this.upperLeft.getX(), this.upperLeft.getY(),
-                this.upperLeft.getX() + this.width, this.upperLeft.getY());
-        Line left = new Line(this.upperLeft.getX(), this.upperLeft.getY(),
-                this.upperLeft.getX(), this.upperLeft.getY() + this.height);
-        Line right = new Line(this.upperLeft.getX() + this.width, this.upperLeft.getY(),
-                this.upperLeft.getX() + this.width, this.upperLeft.getY() + this.height);
-        Line bottom = new Line(this.upperLeft.getX(), this.upperLeft.getY() + this.height,
-                this.upperLeft.getX() + this.width, this.upperLeft.getY() + this.height);
+        double x1 = line.start().getX();
+        double y1 = line.start().getY();
+        double x2 = line.end().getX();
+        double y2 = line.end().getY();
+        double left = this.left;
+        double top = this.top;
+        double right = left + this.width;
+        double bottom = top + this.height;
 
         // Check for intersection with each of the rectangle's edges
-        if (line.isIntersecting(top)) {
-            intersectionPoints.add(line.intersectionWith(top));
+        double t = RayCast.horizontalEdge(x1, y1, x2, y2, top, left, right);
+        if (t != RayCast.MISS) {
+            intersectionPoints.add(new Point(x1 + t * (x2 - x1), top));
         }
-        if (line.isIntersecting(left)) {
-            intersectionPoints.add(line.intersectionWith(left));
+        t = RayCast.verticalEdge(x1, y1, x2, y2, left, top, bottom);
+        if (t != RayCast.MISS) {
+            intersectionPoints.add(new Point(left, y1 + t * (y2 - y1)));
         }
-        if (line.isIntersecting(right)) {
-            intersectionPoints.add(line.intersectionWith(right));
+        t = RayCast.verticalEdge(x1, y1, x2, y2, right, top, bottom);
+        if (t != RayCast.MISS) {
+            intersectionPoints.add(new Point(right, y1 + t * (y2 - y1)));
         }
-        if (line.isIntersecting(bottom)) {
-            intersectionPoints.add(line.intersectionWith(bottom));
+        t = RayCast.horizontalEdge(x1, y1, x2, y2, bottom, left, right);
+        if (t != RayCast.MISS) {
+            intersectionPoints.add(new Point(x1 + t * (x2 - x1), bottom));
         }
 
         return intersectionPoints;
@@ -81,7 +89,42 @@ public class Rectangle {
      * @return the upper-left point of the rectangle
      */
     public Point getUpperLeft() {
-        return this.upperLeft;
+        Point p = this.upperLeft;
+        if (p == null) {
+            p = new Point(this.left, this.top);
+            this.upperLeft = p;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the x coordinate of the left edge of the rectangle.
+     * @return the x coordinate of the left edge
+     */
+    public double getLeft() {
+        return this.left;
+    }
+
+    /**
+     * Returns the y coordinate of the top edge of the rectangle.
+     * @return the y coordinate of the top edge
+     */
+    public double getTop() {
+        return this.top;
+    }
+
+    /**
+     * Moves the rectangle so its upper-left corner is at the given coordinates, without allocating.
+     * Only objects that report themselves as moving may move their collision rectangle.
+     * @param x the new x coordinate of the left edge
+     * @param y the new y coordinate of the top edge
+     */
+    void moveTo(double x, double y) {
+        if (x != this.left || y != this.top) {
+            this.left = x;
+            this.top = y;
+            this.upperLeft = null;
+        }
     }
 
     /**
@@ -90,7 +133,7 @@ public class Rectangle {
      */
     public void drawOn(DrawSurface surface) {
         surface.setColor(this.color);
-        surface.fillRectangle((int) upperLeft.getX(), (int) upperLeft.getY(), (int) width, (int) height);
+        surface.fillRectangle((int) left, (int) top, (int) width, (int) height);
 
     }
 
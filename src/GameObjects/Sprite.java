@@ -19,4 +19,14 @@ public interface Sprite {
      * Notifies the sprite that time has passed.
      */
     void timePassed();
-}
\ No newline at end of file
+
+    /**
+     * Draws the sprite on the specified DrawSurface, between its previous and current state.
+     * Sprites that do not move draw their current state.
+     * @param d the DrawSurface on which to draw the sprite
+     * @param alpha how far between the previous (0) and the current (1) state to draw
+     */
+    default void drawOn(DrawSurface d, double alpha) {
+        drawOn(d);
+    }
+}
\ No newline at end of file
@@ -1,42 +1,84 @@
 package GameObjects;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import biuoop.DrawSurface;
 
 /**
  * The SpriteCollection class represents a collection of sprites.
  * It manages adding, notifying time passed, and drawing all sprites on a DrawSurface.
+ * <p>
+ * Sprites are kept in an array in the order they were added, and every sprite remembers its slot, so removing a
+ * sprite only clears its slot. Cleared slots are squeezed out once they make up half of the array.
+ * Sprites added or removed while the collection is notifying its sprites are queued and applied after the last
+ * sprite was notified, so a sprite removed during a tick still takes part in that tick, and one added during a
+ * tick joins from the next one.
  */
 public class SpriteCollection {
+    private static final int INITIAL_CAPACITY = 16;
 
-    private List<Sprite> sprites;
+    private Sprite[] sprites;
+    private Slot[] slotOf;                // the slot of each sprite, by index
+    private int size;                     // the number of used slots, including cleared ones
+    private int cleared;                  // the number of cleared slots
+    private Map<Sprite, Slot> slots;
+    private Sprite[] pendingSprites;      // sprites added or removed during a tick, in order
+    private boolean[] pendingAdds;        // whether each pending sprite is added (true) or removed (false)
+    private int pendingCount;
+    private boolean notifying;
 
     /**
      * Constructs a new SpriteCollection with an empty list of sprites.
      */
     public SpriteCollection() {
-        this.sprites = new ArrayList<>();
+        this.sprites = new Sprite[INITIAL_CAPACITY];
+        this.slotOf = new Slot[INITIAL_CAPACITY];
+        this.slots = new IdentityHashMap<>();
+        this.pendingSprites = new Sprite[INITIAL_CAPACITY];
+        this.pendingAdds = new boolean[INITIAL_CAPACITY];
     }
 
     /**
-     * Adds a new sprite to the collection.
+     * Adds a new sprite to the collection. A sprite that is already in the collection is not added again.
      * @param s the sprite to add
      */
     public void addSprite(Sprite s) {
-        sprites.add(s);
+        if (notifying) {
+            queue(s, true);
+            return;
+        }
+        if (slots.containsKey(s)) {
+            return;
+        }
+        if (size == sprites.length) {
+            sprites = Arrays.copyOf(sprites, size * 2);
+            slotOf = Arrays.copyOf(slotOf, size * 2);
+        }
+        Slot slot = new Slot(size);
+        slots.put(s, slot);
+        slotOf[size] = slot;
+        sprites[size++] = s;
     }
 
     /**
      * Notifies all the sprites in the collection that time has passed.
      */
     public void notifyAllTimePassed() {
-        List<Sprite> spritesCopy = new ArrayList<>(sprites);
-
-        for (Sprite sprite : spritesCopy) {
-            sprite.timePassed();
+        notifying = true;
+        try {
+            int count = size;
+            for (int i = 0; i < count; i++) {
+                Sprite sprite = sprites[i];
+                if (sprite != null) {
+                    sprite.timePassed();
+                }
+            }
+        } finally {
+            notifying = false;
         }
+        applyPending();
     }
 
     /**
@@ -44,8 +86,26 @@ public class SpriteCollection {
      * @param d the DrawSurface on which to draw the sprites
      */
     public void drawAllOn(DrawSurface d) {
-        for (Sprite sprite : sprites) {
-            sprite.drawOn(d);
+        for (int i = 0; i < size; i++) {
+            Sprite sprite = sprites[i];
+            if (sprite != null) {
+                sprite.drawOn(d);
+            }
+        }
+    }
+
+    /**
+     * Draws all the sprites in the collection on the specified DrawSurface, between their previous and current
+     * state.
+     * @param d the DrawSurface on which to draw the sprites
+     * @param alpha how far between the previous (0) and the current (1) state to draw
+     */
+    public void drawAllOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < size; i++) {
+            Sprite sprite = sprites[i];
+            if (sprite != null) {
+                sprite.drawOn(d, alpha);
+            }
         }
     }
 
@@ -54,6 +114,82 @@ public class SpriteCollection {
      * @param s the sprite to remove
      */
     public void removeSprite(Sprite s) {
-        sprites.remove(s);
+        if (notifying) {
+            queue(s, false);
+            return;
+        }
+        Slot slot = slots.remove(s);
+        if (slot == null) {
+            return;
+        }
+        sprites[slot.index] = null;
+        slotOf[slot.index] = null;
+        cleared++;
+        if (cleared * 2 > size) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the number of sprites in the collection, not counting the ones waiting to be added.
+     * @return the number of sprites
+     */
+    public int size() {
+        return size - cleared;
+    }
+
+    private void queue(Sprite s, boolean add) {
+        if (pendingCount == pendingSprites.length) {
+            pendingSprites = Arrays.copyOf(pendingSprites, pendingCount * 2);
+            pendingAdds = Arrays.copyOf(pendingAdds, pendingCount * 2);
+        }
+        pendingSprites[pendingCount] = s;
+        pendingAdds[pendingCount++] = add;
+    }
+
+    private void applyPending() {
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingAdds[i]) {
+                addSprite(pendingSprites[i]);
+            } else {
+                removeSprite(pendingSprites[i]);
+            }
+        }
+        Arrays.fill(pendingSprites, 0, pendingCount, null);
+        pendingCount = 0;
+    }
+
+    /**
+     * Moves the sprites down over the cleared slots, keeping their order.
+     */
+    private void compact() {
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            Sprite sprite = sprites[i];
+            if (sprite != null) {
+                if (next != i) {
+                    Slot slot = slotOf[i];
+                    slot.index = next;
+                    sprites[next] = sprite;
+                    slotOf[next] = slot;
+                }
+                next++;
+            }
+        }
+        Arrays.fill(sprites, next, size, null);
+        Arrays.fill(slotOf, next, size, null);
+        size = next;
+        cleared = 0;
+    }
+
+    /**
+     * The index of a sprite in the array, which moves when the array is compacted.
+     */
+    private static final class Slot {
+        private int index;
+
+        Slot(int index) {
+            this.index = index;
+        }
     }
-}
\ No newline at end of file
+}
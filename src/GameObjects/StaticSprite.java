@@ -0,0 +1,24 @@
+package GameObjects;
+
+import java.awt.Graphics2D;
+
+/**
+ * The StaticSprite interface represents a sprite that never moves or changes how it looks, and does nothing when
+ * time passes.
+ * <p>
+ * Such sprites are drawn once into a cached layer instead of on every frame.
+ */
+public interface StaticSprite extends Sprite {
+
+    /**
+     * Draws the sprite with the given graphics.
+     * @param g the graphics on which to draw the sprite
+     */
+    void drawOn(Graphics2D g);
+
+    /**
+     * Returns the area the sprite covers, without its outline.
+     * @return the bounds of the sprite
+     */
+    Rectangle getBounds();
+}
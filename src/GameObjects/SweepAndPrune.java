@@ -0,0 +1,209 @@
+package GameObjects;
+
+import java.util.Arrays;
+
+/**
+ * The SweepAndPrune class finds the balls of a ball system that touch each other, and bounces them off each other
+ * elastically.
+ * <p>
+ * The balls are kept sorted by the left end of their x-extent. Only balls whose x-extents overlap can touch, so a
+ * sweep over the sorted balls only tests a ball against the few that start before it ends. Balls move little
+ * between ticks, so the order of the last tick is nearly sorted and an insertion sort repairs it in close to
+ * linear time. When many balls were added since the last sweep, the order is sorted from scratch instead.
+ * <p>
+ * The sort order is kept by slot number. The ball system reports every slot it adds, removes or moves, and the
+ * order is repaired on the next sweep.
+ */
+public class SweepAndPrune {
+    // the number of balls that may be added between two sweeps before the order is sorted from scratch
+    private static final int MAX_INSERTED = 32;
+
+    private int[] order;     // slots sorted by the left end of their x-extent, -1 for removed ones
+    private int[] position;  // the index of every slot in order
+    private double[] minX;   // the left end of the x-extent of every slot, refreshed at every sweep
+    private int[] scratch;   // room for merging when sorting from scratch
+    private int length;
+    private int added;       // the number of slots added since the last sweep
+    private boolean hasRemoved;
+
+    /**
+     * Constructs an empty sweep, for a ball system of the given capacity.
+     * @param capacity the number of slots of the ball system
+     */
+    public SweepAndPrune(int capacity) {
+        this.order = new int[capacity];
+        this.position = new int[capacity];
+        this.minX = new double[capacity];
+    }
+
+    /**
+     * Records a new ball in the given slot.
+     * @param slot the slot of the new ball
+     */
+    void slotAdded(int slot) {
+        if (length == order.length || slot >= position.length) {
+            int capacity = Math.max(order.length * 2, slot + 1);
+            order = Arrays.copyOf(order, capacity);
+            position = Arrays.copyOf(position, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+        }
+        position[slot] = length;
+        order[length++] = slot;
+        added++;
+    }
+
+    /**
+     * Forgets the ball in the given slot.
+     * @param slot the slot of the removed ball
+     */
+    void slotRemoved(int slot) {
+        order[position[slot]] = -1;
+        hasRemoved = true;
+    }
+
+    /**
+     * Records that the ball in one slot moved to another one.
+     * @param from the slot the ball was in
+     * @param to the slot the ball is in now
+     */
+    void slotMoved(int from, int to) {
+        int index = position[from];
+        order[index] = to;
+        position[to] = index;
+    }
+
+    /**
+     * Bounces every pair of touching balls that are moving towards each other off each other.
+     * The balls are treated as discs whose mass grows with their area, and only their velocities change.
+     * @param x the x coordinates of the centers of the balls, by slot
+     * @param y the y coordinates of the centers of the balls, by slot
+     * @param dx the x velocities of the balls, by slot
+     * @param dy the y velocities of the balls, by slot
+     * @param radius the radii of the balls, by slot
+     * @return the number of pairs that bounced
+     */
+    int collide(double[] x, double[] y, double[] dx, double[] dy, int[] radius) {
+        if (hasRemoved) {
+            squeeze();
+        }
+        for (int k = 0; k < length; k++) {
+            int slot = order[k];
+            minX[slot] = x[slot] - radius[slot];
+        }
+        if (added > MAX_INSERTED) {
+            mergeSort();
+        } else {
+            insertionSort();
+        }
+        added = 0;
+
+        int bounces = 0;
+        for (int k = 0; k < length; k++) {
+            int a = order[k];
+            double maxX = x[a] + radius[a];
+            for (int m = k + 1; m < length; m++) {
+                int b = order[m];
+                if (minX[b] > maxX) {
+                    break;
+                }
+                if (bounce(a, b, x, y, dx, dy, radius)) {
+                    bounces++;
+                }
+            }
+        }
+        return bounces;
+    }
+
+    private static boolean bounce(int a, int b, double[] x, double[] y, double[] dx, double[] dy, int[] radius) {
+        double nx = x[b] - x[a];
+        double ny = y[b] - y[a];
+        double reach = radius[a] + radius[b];
+        double distanceSquared = nx * nx + ny * ny;
+        if (distanceSquared >= reach * reach || distanceSquared == 0) {
+            return false;
+        }
+        double distance = Math.sqrt(distanceSquared);
+        nx /= distance;
+        ny /= distance;
+        // the speed at which b closes in on a along the line between their centers
+        double approach = (dx[b] - dx[a]) * nx + (dy[b] - dy[a]) * ny;
+        if (approach >= 0) {
+            return false;
+        }
+        double massA = (double) radius[a] * radius[a];
+        double massB = (double) radius[b] * radius[b];
+        double impulse = 2 * approach / (massA + massB);
+        dx[a] += impulse * massB * nx;
+        dy[a] += impulse * massB * ny;
+        dx[b] -= impulse * massA * nx;
+        dy[b] -= impulse * massA * ny;
+        return true;
+    }
+
+    /**
+     * Drops the removed slots from the order, keeping it sorted.
+     */
+    private void squeeze() {
+        int next = 0;
+        for (int k = 0; k < length; k++) {
+            int slot = order[k];
+            if (slot >= 0) {
+                order[next] = slot;
+                position[slot] = next;
+                next++;
+            }
+        }
+        length = next;
+        hasRemoved = false;
+    }
+
+    /**
+     * Sorts the order by merging ever longer sorted runs, in O(n log n) however shuffled it is.
+     */
+    private void mergeSort() {
+        if (scratch == null || scratch.length < length) {
+            scratch = new int[order.length];
+        }
+        int[] from = order;
+        int[] to = scratch;
+        for (int width = 1; width < length; width *= 2) {
+            for (int start = 0; start < length; start += 2 * width) {
+                int middle = Math.min(start + width, length);
+                int end = Math.min(start + 2 * width, length);
+                int i = start;
+                int j = middle;
+                for (int k = start; k < end; k++) {
+                    if (i < middle && (j >= end || minX[from[i]] <= minX[from[j]])) {
+                        to[k] = from[i++];
+                    } else {
+                        to[k] = from[j++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != order) {
+            System.arraycopy(from, 0, order, 0, length);
+        }
+        for (int k = 0; k < length; k++) {
+            position[order[k]] = k;
+        }
+    }
+
+    private void insertionSort() {
+        for (int k = 1; k < length; k++) {
+            int slot = order[k];
+            double key = minX[slot];
+            int m = k - 1;
+            while (m >= 0 && minX[order[m]] > key) {
+                order[m + 1] = order[m];
+                position[order[m + 1]] = m + 1;
+                m--;
+            }
+            order[m + 1] = slot;
+            position[slot] = m + 1;
+        }
+    }
+}
@@ -58,6 +58,14 @@ public class Velocity {
         return new Point(p.getX() + dx, p.getY() + dy);
     }
 
+    /**
+     * Moves the specified point by this velocity, in place.
+     * @param p the point to which this velocity should be applied
+     */
+    public void applyToPoint(MutableVec2 p) {
+        p.add(dx, dy);
+    }
+
     /**
      * Returns a new Shapes.GameObjects.Velocity instance with the specified angle and speed.
      * @param angle the angle in radians
@@ -77,4 +85,15 @@ public class Velocity {
         return new Velocity(newDx, newDy);
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the velocity with the specified angle and speed into the given vector, without allocating.
+     * @param angle the angle in degrees
+     * @param speed the speed in units per step
+     * @param out the vector that receives the velocity
+     */
+    public static void fromAngleAndSpeed(double angle, double speed, MutableVec2 out) {
+        angle = angle * Math.PI / 180;
+        out.set(speed * Math.cos(angle), speed * Math.sin(angle));
+    }
+}
\ No newline at end of file
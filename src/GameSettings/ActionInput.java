@@ -0,0 +1,43 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The ActionInput class is the paddle input of a game driven by an agent, which sets the keys to hold before every
+ * tick.
+ */
+public class ActionInput implements TickInput {
+    private int keys;
+
+    /**
+     * Sets the keys to hold from the next tick on.
+     * @param held a combination of SessionLog.LEFT and SessionLog.RIGHT
+     */
+    public void set(int held) {
+        this.keys = held;
+    }
+
+    /**
+     * Does nothing: the keys stay as they were set.
+     */
+    @Override
+    public void nextTick() {
+        // the agent sets the keys of every tick itself
+    }
+
+    /**
+     * Returns whether the given key is held.
+     * @param key the key to check
+     * @return true if the key is held
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return (keys & SessionLog.LEFT) != 0;
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return (keys & SessionLog.RIGHT) != 0;
+        }
+        return false;
+    }
+}
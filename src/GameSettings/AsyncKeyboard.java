@@ -0,0 +1,196 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The AsyncKeyboard class is a tick input that learns about key presses and releases as they happen, instead of
+ * polling the keys once per tick.
+ * <p>
+ * Transitions are timestamped by the thread that sees them and handed to the game thread through a
+ * {@link KeyTransitionQueue}. On every tick, the game thread takes the transitions up to the start of the tick and
+ * works out for how much of the time since the last tick each key was held, so a paddle can move by exactly that
+ * much, and a key pressed and released between two ticks still counts as pressed in the next one.
+ * <p>
+ * The transitions come either from a sampler thread that polls a keyboard sensor many times per tick, or from a
+ * single thread calling {@link #keyChanged(String, boolean, long)}, such as a key listener.
+ */
+public class AsyncKeyboard implements TickInput, AutoCloseable {
+    /**
+     * The default number of times per second the sampler thread polls the keyboard sensor.
+     */
+    public static final int DEFAULT_SAMPLE_RATE = 1000;
+
+    private static final String[] KEYS = {KeyboardSensor.LEFT_KEY, KeyboardSensor.RIGHT_KEY, KeyboardSensor.SPACE_KEY};
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final KeyTransitionQueue transitions;
+    private final boolean[] held;         // whether each key is held, as of the last transition taken
+    private final long[] changedAt;       // when each key last changed, or the start of the tick if later
+    private final long[] heldNanos;       // for how long each key was held during the last tick
+    private final boolean[] pressed;      // whether each key was held at any time during the last tick
+    private final double[] fractions;     // for how much of the last tick each key was held
+    private long lastTickNanos;
+    private boolean started;
+    private Thread sampler;
+    private volatile boolean sampling;
+
+    /**
+     * Constructs an async keyboard with no key held and nothing feeding it yet.
+     */
+    public AsyncKeyboard() {
+        this.transitions = new KeyTransitionQueue(QUEUE_CAPACITY);
+        this.held = new boolean[KEYS.length];
+        this.changedAt = new long[KEYS.length];
+        this.heldNanos = new long[KEYS.length];
+        this.pressed = new boolean[KEYS.length];
+        this.fractions = new double[KEYS.length];
+    }
+
+    /**
+     * Starts a daemon thread that polls the given sensor at the given rate and reports every change of its keys.
+     * The sampler is then the only thread allowed to report changes.
+     * @param sensor the keyboard sensor to poll
+     * @param sampleRate the number of polls per second
+     */
+    public synchronized void startSampling(KeyboardSensor sensor, int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate must be positive: " + sampleRate);
+        }
+        if (this.sampler != null) {
+            throw new IllegalStateException("already sampling");
+        }
+        long period = NANOS_PER_SECOND / sampleRate;
+        this.sampling = true;
+        this.sampler = new Thread(() -> sample(sensor, period), "Arkanoid input sampler");
+        this.sampler.setDaemon(true);
+        this.sampler.start();
+    }
+
+    /**
+     * Reports that a key was pressed or released. Must always be called from the same thread.
+     * @param key the key that changed
+     * @param isDown true if the key was pressed, false if it was released
+     * @param nanos when the key changed, as given by System.nanoTime()
+     * @return true if the change was queued, false if the key is not tracked or too many changes are waiting
+     */
+    public boolean keyChanged(String key, boolean isDown, long nanos) {
+        int index = indexOf(key);
+        return index >= 0 && transitions.offer(nanos, index, isDown);
+    }
+
+    /**
+     * Starts the next tick: takes the key changes made up to now and works out how long each key was held since the
+     * last tick.
+     */
+    @Override
+    public void nextTick() {
+        long now = System.nanoTime();
+        long tickStart = started ? lastTickNanos : now;
+        started = true;
+        for (int k = 0; k < KEYS.length; k++) {
+            heldNanos[k] = 0;
+            pressed[k] = held[k];
+        }
+        while (!transitions.isEmpty() && transitions.peekNanos() - now <= 0) {
+            int k = transitions.peekKey();
+            boolean isDown = transitions.peekPressed();
+            long at = Math.max(transitions.peekNanos(), tickStart);
+            transitions.remove();
+            if (held[k] && !isDown) {
+                heldNanos[k] += at - changedAt[k];
+            }
+            if (held[k] != isDown) {
+                held[k] = isDown;
+                changedAt[k] = at;
+            }
+            pressed[k] |= isDown;
+        }
+        long length = now - tickStart;
+        for (int k = 0; k < KEYS.length; k++) {
+            if (held[k]) {
+                heldNanos[k] += now - Math.max(changedAt[k], tickStart);
+            }
+            changedAt[k] = now;
+            if (length > 0) {
+                fractions[k] = Math.min(1, (double) heldNanos[k] / length);
+            } else {
+                fractions[k] = held[k] ? 1 : 0;
+            }
+        }
+        lastTickNanos = now;
+    }
+
+    /**
+     * Returns whether the given key was held at any time during the last tick, however briefly.
+     * @param key the key to check
+     * @return true if the key was held
+     */
+    @Override
+    public boolean isPressed(String key) {
+        int index = indexOf(key);
+        return index >= 0 && pressed[index];
+    }
+
+    /**
+     * Returns for how much of the time between the last two ticks the given key was held.
+     * @param key the key to check
+     * @return the held fraction, between 0 and 1
+     */
+    @Override
+    public double heldFraction(String key) {
+        int index = indexOf(key);
+        return index < 0 ? 0 : fractions[index];
+    }
+
+    /**
+     * Stops the sampler thread, if there is one.
+     */
+    @Override
+    public synchronized void close() {
+        this.sampling = false;
+        if (this.sampler == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (this.sampler.isAlive()) {
+            try {
+                this.sampler.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        this.sampler = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample(KeyboardSensor sensor, long period) {
+        boolean[] reported = new boolean[KEYS.length];
+        long next = System.nanoTime();
+        while (sampling) {
+            long now = System.nanoTime();
+            for (int k = 0; k < KEYS.length; k++) {
+                boolean isDown = sensor.isPressed(KEYS[k]);
+                // a change that does not fit is reported again on the next poll
+                if (isDown != reported[k] && transitions.offer(now, k, isDown)) {
+                    reported[k] = isDown;
+                }
+            }
+            next = Math.max(next + period, now);
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+    }
+
+    private static int indexOf(String key) {
+        for (int k = 0; k < KEYS.length; k++) {
+            if (KEYS[k].equals(key)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,529 @@
+package GameSettings;
+
+import GameObjects.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BoundingVolumeHierarchy class is a binary tree of bounding boxes over the static collidables of a game.
+ * A query descends only into the boxes its trajectory passes through, so it takes about logarithmic time whatever
+ * the sizes of the collidables, where a uniform grid degrades when they differ a lot in size.
+ * <p>
+ * The tree is built top-down. The entries of a node are sorted into BINS slices of the box of their centers,
+ * along both sides, and split between the two slices where the sum of the perimeters of the two halves, weighted
+ * by their number of entries, is smallest, which keeps large collidables apart from small ones. Splitting stops
+ * when at most LEAF_SIZE entries are left in a node. A removed entry is cleared from its leaf, and the boxes
+ * above it are shrunk to fit again. Entries added after the tree was built are kept in a short list that every
+ * query scans. The tree is rebuilt, at the next query, once that list grows too long or once half of the entries
+ * of the tree were removed.
+ */
+public class BoundingVolumeHierarchy extends CollisionIndex {
+    private static final int LEAF_SIZE = 4;
+    private static final int BINS = 16;
+    private static final int MIN_UNINDEXED = 16;
+    // Padding so a trajectory touching a box exactly on an edge is not pruned by rounding
+    private static final double EPSILON = 1e-6;
+    private static final ThreadLocal<Stack> STACKS = ThreadLocal.withInitial(Stack::new);
+
+    // the nodes of the tree; an inner node has two children, a leaf has a range of leafEntries
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int[] left;       // the left child of an inner node, or -1 for a leaf
+    private int[] right;      // the right child of an inner node
+    private int[] start;      // the first index in leafEntries of a leaf
+    private int[] count;      // the number of indexes in leafEntries of a leaf
+    private int[] parent;     // the parent of a node, or -1 for the root
+    private int nodeCount;
+    private GameEnvironment.Entry[] leafEntries;  // the entries of all the leaves, null where one was removed
+    private int indexed;      // the number of entries in the tree
+    private int removed;      // the number of entries removed from the tree since it was built
+    private final List<GameEnvironment.Entry> unindexed;
+    private volatile boolean stale;
+    // scratch space for choosing splits while building
+    private final int[] binCounts = new int[BINS];
+    private final double[] binBounds = new double[4 * BINS];
+    private final double[] costs = new double[BINS];
+
+    /**
+     * Constructs an empty hierarchy.
+     */
+    public BoundingVolumeHierarchy() {
+        this.unindexed = new ArrayList<>();
+        this.leafEntries = new GameEnvironment.Entry[0];
+        allocateNodes(1);
+    }
+
+    @Override
+    void insert(GameEnvironment.Entry entry) {
+        entry.leaf = -1;
+        unindexed.add(entry);
+        if (unindexed.size() > Math.max(MIN_UNINDEXED, indexed / 8)) {
+            stale = true;
+        }
+    }
+
+    @Override
+    void remove(GameEnvironment.Entry entry) {
+        if (entry.leaf < 0) {
+            unindexed.remove(entry);
+            return;
+        }
+        int leaf = entry.leaf;
+        leafEntries[entry.leafSlot] = null;
+        entry.leaf = -1;
+        indexed--;
+        removed++;
+        if (removed > indexed) {
+            stale = true;
+        }
+        // shrink the leaf and every box above it
+        fitLeaf(leaf);
+        for (int node = parent[leaf]; node >= 0; node = parent[node]) {
+            fitInner(node);
+        }
+    }
+
+    @Override
+    GameEnvironment.Entry closest(double x1, double y1, double x2, double y2, double radius,
+                                  GameEnvironment.Entry best, double bestTime) {
+        if (stale) {
+            rebuild();
+        }
+        if (best == null) {
+            bestTime = Double.POSITIVE_INFINITY;
+        }
+        for (int i = 0; i < unindexed.size(); i++) {
+            GameEnvironment.Entry entry = unindexed.get(i);
+            double t = RayCast.sweptEntryTime(x1, y1, x2, y2, radius,
+                    entry.left, entry.top, entry.right, entry.bottom);
+            if (t != RayCast.MISS && isBetter(t, entry, bestTime, best)) {
+                bestTime = t;
+                best = entry;
+            }
+        }
+        if (nodeCount == 0) {
+            return best;
+        }
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double invDx = 1 / dx;
+        double invDy = 1 / dy;
+        double pad = radius + EPSILON;
+        double[] minX = this.minX;
+        double[] minY = this.minY;
+        double[] maxX = this.maxX;
+        double[] maxY = this.maxY;
+        int[] left = this.left;
+        double rootTime = boxEntryTime(x1, y1, invDx, invDy, minX[0] - pad, minY[0] - pad,
+                maxX[0] + pad, maxY[0] + pad);
+        if (rootTime == RayCast.MISS || rootTime > bestTime) {
+            return best;
+        }
+        Stack stack = STACKS.get();
+        int top = stack.push(0, 0, rootTime);
+        while (top > 0) {
+            top--;
+            int node = stack.nodes[top];
+            if (stack.times[top] > bestTime) {
+                continue;
+            }
+            if (left[node] < 0) {
+                int end = start[node] + count[node];
+                for (int i = start[node]; i < end; i++) {
+                    GameEnvironment.Entry entry = leafEntries[i];
+                    if (entry == null) {
+                        continue;
+                    }
+                    double entryTime = RayCast.sweptEntryTime(x1, y1, x2, y2, radius,
+                            entry.left, entry.top, entry.right, entry.bottom);
+                    if (entryTime != RayCast.MISS && isBetter(entryTime, entry, bestTime, best)) {
+                        bestTime = entryTime;
+                        best = entry;
+                    }
+                }
+                continue;
+            }
+            // test both children here, so only the boxes the trajectory enters are pushed, the nearer one last
+            int a = left[node];
+            int b = right[node];
+            double timeA = boxEntryTime(x1, y1, invDx, invDy, minX[a] - pad, minY[a] - pad,
+                    maxX[a] + pad, maxY[a] + pad);
+            double timeB = boxEntryTime(x1, y1, invDx, invDy, minX[b] - pad, minY[b] - pad,
+                    maxX[b] + pad, maxY[b] + pad);
+            boolean hitA = timeA != RayCast.MISS && timeA <= bestTime;
+            boolean hitB = timeB != RayCast.MISS && timeB <= bestTime;
+            if (hitA && hitB) {
+                if (timeB < timeA) {
+                    top = stack.push(top, a, timeA);
+                    top = stack.push(top, b, timeB);
+                } else {
+                    top = stack.push(top, b, timeB);
+                    top = stack.push(top, a, timeA);
+                }
+            } else if (hitA) {
+                top = stack.push(top, a, timeA);
+            } else if (hitB) {
+                top = stack.push(top, b, timeB);
+            }
+        }
+        return best;
+    }
+
+    @Override
+    void collect(double minX, double minY, double maxX, double maxY, List<GameEnvironment.Entry> into) {
+        if (stale) {
+            rebuild();
+        }
+        for (int i = 0; i < unindexed.size(); i++) {
+            GameEnvironment.Entry entry = unindexed.get(i);
+            if (overlaps(entry, minX, minY, maxX, maxY)) {
+                into.add(entry);
+            }
+        }
+        if (nodeCount == 0) {
+            return;
+        }
+        Stack stack = STACKS.get();
+        int top = stack.push(0, 0, 0);
+        while (top > 0) {
+            int node = stack.nodes[--top];
+            if (this.minX[node] > maxX || minX > this.maxX[node] || this.minY[node] > maxY || minY > this.maxY[node]) {
+                continue;
+            }
+            if (left[node] >= 0) {
+                top = stack.push(top, right[node], 0);
+                top = stack.push(top, left[node], 0);
+                continue;
+            }
+            int end = start[node] + count[node];
+            for (int i = start[node]; i < end; i++) {
+                GameEnvironment.Entry entry = leafEntries[i];
+                if (entry != null && overlaps(entry, minX, minY, maxX, maxY)) {
+                    into.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in the tree, not counting the ones added since it was built.
+     * @return the number of indexed entries
+     */
+    public int getIndexedCount() {
+        return indexed;
+    }
+
+    /**
+     * Returns the time at which the segment from (x, y) along (dx, dy), given as 1 / dx and 1 / dy, enters a box,
+     * or is already in it.
+     * @return the entry time between 0 and 1, or RayCast.MISS
+     */
+    private static double boxEntryTime(double x, double y, double invDx, double invDy,
+                                       double boxMinX, double boxMinY, double boxMaxX, double boxMaxY) {
+        if (boxMinX > boxMaxX || boxMinY > boxMaxY) {
+            return RayCast.MISS;
+        }
+        double enter = 0;
+        double exit = 1;
+        if (Double.isInfinite(invDx)) {
+            if (x < boxMinX || x > boxMaxX) {
+                return RayCast.MISS;
+            }
+        } else {
+            double t1 = (boxMinX - x) * invDx;
+            double t2 = (boxMaxX - x) * invDx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (Double.isInfinite(invDy)) {
+            if (y < boxMinY || y > boxMaxY) {
+                return RayCast.MISS;
+            }
+        } else {
+            double t1 = (boxMinY - y) * invDy;
+            double t2 = (boxMaxY - y) * invDy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        return enter <= exit ? enter : RayCast.MISS;
+    }
+
+    /**
+     * Builds the tree again over every entry, indexed or not. Queries may call this from several threads at once,
+     * so only the first one builds.
+     */
+    private synchronized void rebuild() {
+        if (!stale) {
+            return;
+        }
+        GameEnvironment.Entry[] entries = new GameEnvironment.Entry[indexed + unindexed.size()];
+        int n = 0;
+        for (GameEnvironment.Entry entry : leafEntries) {
+            if (entry != null) {
+                entries[n++] = entry;
+            }
+        }
+        for (GameEnvironment.Entry entry : unindexed) {
+            entries[n++] = entry;
+        }
+        unindexed.clear();
+        leafEntries = entries;
+        indexed = n;
+        removed = 0;
+        nodeCount = 0;
+        if (n > 0) {
+            allocateNodes(2 * n);
+            build(0, n, -1);
+        }
+        stale = false;
+    }
+
+    private int build(int from, int to, int parentNode) {
+        int node = nodeCount++;
+        parent[node] = parentNode;
+        if (to - from <= LEAF_SIZE) {
+            left[node] = -1;
+            start[node] = from;
+            count[node] = to - from;
+            for (int i = from; i < to; i++) {
+                leafEntries[i].leaf = node;
+                leafEntries[i].leafSlot = i;
+            }
+            fitLeaf(node);
+            return node;
+        }
+        // split where the estimated cost of the two halves is lowest, binning the centers along both axes of their
+        // box; the median center along the longer side is only a fallback
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            GameEnvironment.Entry entry = leafEntries[i];
+            double cx = entry.left + entry.right;
+            double cy = entry.top + entry.bottom;
+            lowX = Math.min(lowX, cx);
+            highX = Math.max(highX, cx);
+            lowY = Math.min(lowY, cy);
+            highY = Math.max(highY, cy);
+        }
+        int middle = splitByCost(from, to, lowX, highX, lowY, highY);
+        if (middle <= from || middle >= to) {
+            // every split is as costly, or all the centers coincide: split at the median instead
+            middle = (from + to) >>> 1;
+            select(from, to - 1, middle, highX - lowX >= highY - lowY);
+        }
+        left[node] = build(from, middle, node);
+        right[node] = build(middle, to, node);
+        fitInner(node);
+        return node;
+    }
+
+    /**
+     * Chooses the cheapest split of leafEntries[from..to) between two slices of the box of their centers, and
+     * moves the entries of the lower slices before the others.
+     * @return the index of the first entry of the upper half, or -1 if no split beats keeping the entries together
+     */
+    private int splitByCost(int from, int to, double lowX, double highX, double lowY, double highY) {
+        double bestCost = perimeterOf(from, to) * (to - from);
+        int bestBin = -1;
+        boolean bestAlongX = true;
+        for (int axis = 0; axis < 2; axis++) {
+            boolean alongX = axis == 0;
+            double low = alongX ? lowX : lowY;
+            double extent = alongX ? highX - lowX : highY - lowY;
+            if (extent <= 0) {
+                continue;
+            }
+            Arrays.fill(binCounts, 0);
+            for (int b = 0; b < BINS; b++) {
+                binBounds[4 * b] = Double.POSITIVE_INFINITY;
+                binBounds[4 * b + 1] = Double.POSITIVE_INFINITY;
+                binBounds[4 * b + 2] = Double.NEGATIVE_INFINITY;
+                binBounds[4 * b + 3] = Double.NEGATIVE_INFINITY;
+            }
+            for (int i = from; i < to; i++) {
+                GameEnvironment.Entry entry = leafEntries[i];
+                int b = binOf(center(entry, alongX), low, extent);
+                binCounts[b]++;
+                binBounds[4 * b] = Math.min(binBounds[4 * b], entry.left);
+                binBounds[4 * b + 1] = Math.min(binBounds[4 * b + 1], entry.top);
+                binBounds[4 * b + 2] = Math.max(binBounds[4 * b + 2], entry.right);
+                binBounds[4 * b + 3] = Math.max(binBounds[4 * b + 3], entry.bottom);
+            }
+            // costs[b] is the cost of the slices below b, then the cost of the slices from b up is added
+            double l = Double.POSITIVE_INFINITY;
+            double t = Double.POSITIVE_INFINITY;
+            double r = Double.NEGATIVE_INFINITY;
+            double btm = Double.NEGATIVE_INFINITY;
+            int below = 0;
+            for (int b = 1; b < BINS; b++) {
+                l = Math.min(l, binBounds[4 * (b - 1)]);
+                t = Math.min(t, binBounds[4 * (b - 1) + 1]);
+                r = Math.max(r, binBounds[4 * (b - 1) + 2]);
+                btm = Math.max(btm, binBounds[4 * (b - 1) + 3]);
+                below += binCounts[b - 1];
+                costs[b] = below == 0 ? Double.POSITIVE_INFINITY : (r - l + btm - t) * below;
+            }
+            l = Double.POSITIVE_INFINITY;
+            t = Double.POSITIVE_INFINITY;
+            r = Double.NEGATIVE_INFINITY;
+            btm = Double.NEGATIVE_INFINITY;
+            int above = 0;
+            for (int b = BINS - 1; b >= 1; b--) {
+                l = Math.min(l, binBounds[4 * b]);
+                t = Math.min(t, binBounds[4 * b + 1]);
+                r = Math.max(r, binBounds[4 * b + 2]);
+                btm = Math.max(btm, binBounds[4 * b + 3]);
+                above += binCounts[b];
+                double cost = above == 0 ? Double.POSITIVE_INFINITY : costs[b] + (r - l + btm - t) * above;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestBin = b;
+                    bestAlongX = alongX;
+                }
+            }
+        }
+        if (bestBin < 0) {
+            return -1;
+        }
+        // move the entries of the slices below the best split to the front
+        double low = bestAlongX ? lowX : lowY;
+        double extent = bestAlongX ? highX - lowX : highY - lowY;
+        int i = from;
+        int j = to - 1;
+        while (i <= j) {
+            if (binOf(center(leafEntries[i], bestAlongX), low, extent) < bestBin) {
+                i++;
+            } else {
+                GameEnvironment.Entry swap = leafEntries[i];
+                leafEntries[i] = leafEntries[j];
+                leafEntries[j] = swap;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    private static int binOf(double center, double low, double extent) {
+        return Math.min(BINS - 1, (int) ((center - low) / extent * BINS));
+    }
+
+    private double perimeterOf(int from, int to) {
+        double l = Double.POSITIVE_INFINITY;
+        double t = Double.POSITIVE_INFINITY;
+        double r = Double.NEGATIVE_INFINITY;
+        double b = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            GameEnvironment.Entry entry = leafEntries[i];
+            l = Math.min(l, entry.left);
+            t = Math.min(t, entry.top);
+            r = Math.max(r, entry.right);
+            b = Math.max(b, entry.bottom);
+        }
+        return r - l + b - t;
+    }
+
+    /**
+     * Reorders leafEntries[from..to] so the entry at k has the center it would have if they were sorted, with
+     * smaller centers before it and larger ones after it.
+     */
+    private void select(int from, int to, int k, boolean alongX) {
+        while (from < to) {
+            double pivot = center(leafEntries[(from + to) >>> 1], alongX);
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (center(leafEntries[i], alongX) < pivot) {
+                    i++;
+                }
+                while (center(leafEntries[j], alongX) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    GameEnvironment.Entry swap = leafEntries[i];
+                    leafEntries[i] = leafEntries[j];
+                    leafEntries[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static double center(GameEnvironment.Entry entry, boolean alongX) {
+        return alongX ? entry.left + entry.right : entry.top + entry.bottom;
+    }
+
+    private void fitLeaf(int node) {
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        int end = start[node] + count[node];
+        for (int i = start[node]; i < end; i++) {
+            GameEnvironment.Entry entry = leafEntries[i];
+            if (entry != null) {
+                lowX = Math.min(lowX, entry.left);
+                lowY = Math.min(lowY, entry.top);
+                highX = Math.max(highX, entry.right);
+                highY = Math.max(highY, entry.bottom);
+            }
+        }
+        minX[node] = lowX;
+        minY[node] = lowY;
+        maxX[node] = highX;
+        maxY[node] = highY;
+    }
+
+    private void fitInner(int node) {
+        int a = left[node];
+        int b = right[node];
+        minX[node] = Math.min(minX[a], minX[b]);
+        minY[node] = Math.min(minY[a], minY[b]);
+        maxX[node] = Math.max(maxX[a], maxX[b]);
+        maxY[node] = Math.max(maxY[a], maxY[b]);
+    }
+
+    private void allocateNodes(int capacity) {
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        start = new int[capacity];
+        count = new int[capacity];
+        parent = new int[capacity];
+    }
+
+    /**
+     * The nodes a query still has to visit, with the times at which the trajectory enters their boxes.
+     * Every thread keeps its own, so queries from several threads do not share it.
+     */
+    private static final class Stack {
+        private int[] nodes = new int[64];
+        private double[] times = new double[64];
+
+        int push(int top, int node, double time) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+                times = Arrays.copyOf(times, top * 2);
+            }
+            nodes[top] = node;
+            times[top] = time;
+            return top + 1;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package GameSettings;
+
+import GameObjects.CollisionInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CandidateCache class remembers the static collidables around the recent path of one moving object, so its
+ * next collision queries only test those instead of searching the whole environment again.
+ * <p>
+ * When a query does not fit the cached box, the box is refilled: it is the box of the trajectory, grown on every
+ * side by a number of trajectory lengths, at most MAX_LOOKAHEAD, and by at least MIN_MARGIN. The static
+ * collidables overlapping it are taken from the index of the environment. In crowded areas, where a refill finds
+ * more than MAX_CANDIDATES collidables, the box reaches half as far the next time, so every query stays cheap;
+ * in empty areas it grows back. The cache is also refilled after MAX_QUERIES
+ * queries, and whenever a collidable was added to the environment. Collidables removed from the environment are
+ * skipped until the next refill, so clearing blocks does not throw the cache away. Moving collidables are not
+ * cached; every query tests them. A query answered from the cache gives exactly the result of a full query.
+ * <p>
+ * A cache belongs to one moving object and must only be used by one thread at a time.
+ */
+public class CandidateCache {
+    /**
+     * The most trajectory lengths the cached box reaches beyond the trajectory that filled it.
+     */
+    public static final double MAX_LOOKAHEAD = 8;
+    /**
+     * The least distance the cached box reaches beyond the trajectory that filled it.
+     */
+    public static final double MIN_MARGIN = 4;
+    /**
+     * The number of candidates above which the cached box is made smaller.
+     */
+    public static final int MAX_CANDIDATES = 64;
+    /**
+     * The most queries answered from one filling of the cache.
+     */
+    public static final int MAX_QUERIES = 64;
+
+    private final GameEnvironment environment;
+    private final List<GameEnvironment.Entry> candidates;
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private long additionCount;
+    private int queriesLeft;
+    private double lookahead = MAX_LOOKAHEAD;
+    private long refills;
+
+    /**
+     * Constructs an empty cache over the given environment.
+     * @param environment the environment the cached collidables are in
+     */
+    public CandidateCache(GameEnvironment environment) {
+        this.environment = environment;
+        this.candidates = new ArrayList<>();
+    }
+
+    /**
+     * Returns information about the closest collision of a circle moving along a segment, as
+     * {@link GameEnvironment#getClosestCollision(double, double, double, double, double)} does.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param radius the radius of the circle, 0 for a point
+     * @return the closest collision, or null if no collision will occur
+     */
+    public CollisionInfo getClosestCollision(double x1, double y1, double x2, double y2, double radius) {
+        double lowX = Math.min(x1, x2) - radius;
+        double lowY = Math.min(y1, y2) - radius;
+        double highX = Math.max(x1, x2) + radius;
+        double highY = Math.max(y1, y2) + radius;
+        if (queriesLeft <= 0 || additionCount != environment.getAdditionCount()
+                || lowX < minX || lowY < minY || highX > maxX || highY > maxY) {
+            double margin = Math.max(MIN_MARGIN, lookahead * Math.hypot(x2 - x1, y2 - y1));
+            minX = lowX - margin;
+            minY = lowY - margin;
+            maxX = highX + margin;
+            maxY = highY + margin;
+            additionCount = environment.getAdditionCount();
+            candidates.clear();
+            environment.collectStatic(minX, minY, maxX, maxY, candidates);
+            queriesLeft = MAX_QUERIES;
+            if (candidates.size() > MAX_CANDIDATES) {
+                lookahead = Math.max(1, lookahead / 2);
+            } else if (candidates.size() < MAX_CANDIDATES / 4) {
+                lookahead = Math.min(MAX_LOOKAHEAD, lookahead * 2);
+            }
+            refills++;
+        }
+        queriesLeft--;
+        return environment.getClosestCollision(candidates, x1, y1, x2, y2, radius);
+    }
+
+    /**
+     * Returns the number of static collidables in the cache.
+     * @return the number of candidates
+     */
+    public int size() {
+        return candidates.size();
+    }
+
+    /**
+     * Returns how many times the cache was filled.
+     * @return the number of refills
+     */
+    public long getRefills() {
+        return refills;
+    }
+}
@@ -0,0 +1,270 @@
+package GameSettings;
+
+import GameObjects.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CollisionGrid class is a uniform grid of square cells used by the GameEnvironment to find the collidables
+ * that a trajectory may hit without testing every collidable in the game.
+ * <p>
+ * Every indexed collidable is stored in all the cells its collision rectangle overlaps.
+ * A query walks only the cells the trajectory passes through, row by row, and never leaves the range of cells
+ * anything was ever stored in, so a long or far-away trajectory does not walk empty cells.
+ */
+public class CollisionGrid extends CollisionIndex {
+    /**
+     * The default side length of a cell, a bit larger than a regular block.
+     */
+    public static final double DEFAULT_CELL_SIZE = 64;
+
+    // Padding used so points lying exactly on a cell edge are found in both neighbouring cells
+    private static final double EPSILON = 1e-6;
+
+    private final double cellSize;
+    private final CellMap cells;
+    // the range of cells anything was ever stored in; empty while minColumn > maxColumn
+    private int minColumn = Integer.MAX_VALUE;
+    private int maxColumn = Integer.MIN_VALUE;
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+
+    /**
+     * Constructs an empty grid with the default cell size.
+     */
+    public CollisionGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs an empty grid with the given cell size.
+     * @param cellSize the side length of every cell
+     */
+    public CollisionGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.cells = new CellMap();
+    }
+
+    /**
+     * Adds an entry to every cell its rectangle overlaps.
+     * @param entry the entry to add
+     */
+    @Override
+    void insert(GameEnvironment.Entry entry) {
+        entry.minCellX = cellOf(entry.left - EPSILON);
+        entry.maxCellX = cellOf(entry.right + EPSILON);
+        entry.minCellY = cellOf(entry.top - EPSILON);
+        entry.maxCellY = cellOf(entry.bottom + EPSILON);
+        minColumn = Math.min(minColumn, entry.minCellX);
+        maxColumn = Math.max(maxColumn, entry.maxCellX);
+        minRow = Math.min(minRow, entry.minCellY);
+        maxRow = Math.max(maxRow, entry.maxCellY);
+        for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+            for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+                cells.getOrCreate(key(cx, cy)).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from all the cells it was added to.
+     * @param entry the entry to remove
+     */
+    @Override
+    void remove(GameEnvironment.Entry entry) {
+        for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+            for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+                List<GameEnvironment.Entry> bucket = cells.get(key(cx, cy));
+                if (bucket != null) {
+                    bucket.remove(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the entry a circle moving along the segment touches first, among the entries stored in the cells
+     * near the segment and the given best entry so far.
+     * When two entries are touched at the same time, the one that was added to the environment first wins.
+     * A segment or radius that is not finite touches nothing.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param radius the radius of the moving circle, 0 for a point
+     * @param best the best entry found so far, or null
+     * @param bestTime the time at which the circle touches the best entry, ignored if there is none
+     * @return the entry touched first, or null if there is none
+     */
+    @Override
+    GameEnvironment.Entry closest(double x1, double y1, double x2, double y2, double radius,
+                                  GameEnvironment.Entry best, double bestTime) {
+        if (best == null) {
+            bestTime = Double.POSITIVE_INFINITY;
+        }
+        if (!Double.isFinite(x1) || !Double.isFinite(y1) || !Double.isFinite(x2) || !Double.isFinite(y2)
+                || !Double.isFinite(radius)) {
+            return best;
+        }
+        double pad = radius + EPSILON;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double minY = Math.min(y1, y2) - pad;
+        double maxY = Math.max(y1, y2) + pad;
+        int lastRow = Math.min(cellOf(maxY), maxRow);
+        for (int cy = Math.max(cellOf(minY), minRow); cy <= lastRow; cy++) {
+            // Find the x range the segment covers within pad of this row of cells
+            double xa = x1;
+            double xb = x2;
+            if (dy != 0) {
+                double rowTop = Math.max(cy * cellSize, minY) - pad;
+                double rowBottom = Math.min((cy + 1) * cellSize, maxY) + pad;
+                double ta = clamp((rowTop - y1) / dy);
+                double tb = clamp((rowBottom - y1) / dy);
+                xa = x1 + ta * dx;
+                xb = x1 + tb * dx;
+            }
+            int lastColumn = Math.min(cellOf(Math.max(xa, xb) + pad), maxColumn);
+            for (int cx = Math.max(cellOf(Math.min(xa, xb) - pad), minColumn); cx <= lastColumn; cx++) {
+                List<GameEnvironment.Entry> bucket = cells.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    GameEnvironment.Entry entry = bucket.get(i);
+                    double t = RayCast.sweptEntryTime(x1, y1, x2, y2, radius,
+                            entry.left, entry.top, entry.right, entry.bottom);
+                    if (t != RayCast.MISS && (t < bestTime || (t == bestTime && entry.order < best.order))) {
+                        bestTime = t;
+                        best = entry;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds every entry whose rectangle overlaps a box to a list, each once: an entry stored in several of the
+     * cells the box covers is only taken from the first of them.
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param into the list to add the entries to
+     */
+    @Override
+    void collect(double minX, double minY, double maxX, double maxY, List<GameEnvironment.Entry> into) {
+        int firstColumn = Math.max(cellOf(minX - EPSILON), minColumn);
+        int firstRow = Math.max(cellOf(minY - EPSILON), minRow);
+        int lastColumn = Math.min(cellOf(maxX + EPSILON), maxColumn);
+        int lastRow = Math.min(cellOf(maxY + EPSILON), maxRow);
+        for (int cy = firstRow; cy <= lastRow; cy++) {
+            for (int cx = firstColumn; cx <= lastColumn; cx++) {
+                List<GameEnvironment.Entry> bucket = cells.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    GameEnvironment.Entry entry = bucket.get(i);
+                    if (Math.max(entry.minCellX, firstColumn) == cx && Math.max(entry.minCellY, firstRow) == cy
+                            && overlaps(entry, minX, minY, maxX, maxY)) {
+                        into.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the side length of every cell.
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static double clamp(double t) {
+        return Math.max(0, Math.min(1, t));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * An open-addressing hash map from cell keys to cell contents, so looking a cell up never boxes its key.
+     * Cells are never removed; a cell whose collidables were all removed stays as an empty list.
+     */
+    private static final class CellMap {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] keys;
+        private List<?>[] values;
+        private int size;
+
+        CellMap() {
+            this.keys = new long[INITIAL_CAPACITY];
+            this.values = new List<?>[INITIAL_CAPACITY];
+        }
+
+        @SuppressWarnings("unchecked")
+        List<GameEnvironment.Entry> get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (List<GameEnvironment.Entry>) values[i];
+                }
+            }
+            return null;
+        }
+
+        List<GameEnvironment.Entry> getOrCreate(long key) {
+            List<GameEnvironment.Entry> bucket = get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (2 * (size + 1) > keys.length) {
+                resize();
+            }
+            bucket = new ArrayList<>();
+            put(key, bucket);
+            size++;
+            return bucket;
+        }
+
+        private void put(long key, List<?> value) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            List<?>[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new List<?>[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package GameSettings;
+
+import java.util.List;
+
+/**
+ * The CollisionIndex class is the base of the spatial indexes a GameEnvironment can keep its static collidables
+ * in, so a collision query only tests the collidables near the trajectory.
+ * <p>
+ * The environment adds and removes entries on the game thread only. Queries may come from several threads at
+ * once, but never while an entry is being added or removed.
+ */
+public abstract class CollisionIndex {
+
+    /**
+     * Adds an entry to the index.
+     * @param entry the entry to add
+     */
+    abstract void insert(GameEnvironment.Entry entry);
+
+    /**
+     * Removes an entry from the index.
+     * @param entry the entry to remove, which was added before
+     */
+    abstract void remove(GameEnvironment.Entry entry);
+
+    /**
+     * Returns the entry a circle moving along the segment touches first, among the entries in the index and the
+     * given best entry so far.
+     * When two entries are touched at the same time, the one that was added to the environment first wins.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param radius the radius of the moving circle, 0 for a point
+     * @param best the best entry found so far, or null
+     * @param bestTime the time at which the circle touches the best entry, ignored if there is none
+     * @return the entry touched first, or null if there is none
+     */
+    abstract GameEnvironment.Entry closest(double x1, double y1, double x2, double y2, double radius,
+                                           GameEnvironment.Entry best, double bestTime);
+
+    /**
+     * Adds every entry whose rectangle overlaps a box to a list, each once.
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param into the list to add the entries to
+     */
+    abstract void collect(double minX, double minY, double maxX, double maxY, List<GameEnvironment.Entry> into);
+
+    /**
+     * Returns whether an entry overlaps a box.
+     */
+    static boolean overlaps(GameEnvironment.Entry entry, double minX, double minY, double maxX, double maxY) {
+        return entry.left <= maxX && minX <= entry.right && entry.top <= maxY && minY <= entry.bottom;
+    }
+
+    /**
+     * Returns whether an entry found by a query beats the best one so far.
+     * @param t the time at which the circle touches the entry
+     * @param entry the entry
+     * @param bestTime the time at which the circle touches the best entry so far
+     * @param best the best entry so far, or null
+     * @return true if the entry is touched earlier, or at the same time but was added first
+     */
+    static boolean isBetter(double t, GameEnvironment.Entry entry, double bestTime, GameEnvironment.Entry best) {
+        return best == null || t < bestTime || (t == bestTime && entry.order < best.order);
+    }
+}
@@ -8,16 +8,32 @@ import biuoop.DrawSurface;
 import biuoop.KeyboardSensor;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * The GameSettings.Game class represents the game itself, which is responsible for managing and running the game.
  * <p>
  * It contains a collection of Sprites, a game environment, a GUI, a sleeper, and a keyboard sensor.
+ * <p>
+ * Optionally, a windowed game draws its frames on a separate render thread, so slow frames never hold the physics
+ * back. The game thread then publishes a {@link WorldSnapshot} after every tick through a lock-free
+ * {@link SnapshotExchange}, and hands the static sprites it adds and removes to the render thread, which owns the
+ * static layer while the game runs.
  */
 public class Game {
     private static final int GAME_WIDTH = 800;
     private static final int GAME_HEIGHT = 600;
     private static final int FRAMES_PER_SECOND = 60;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLISECOND = 1_000_000L;
+    private static final int MAX_CATCH_UP_STEPS = 5;
+    private static final int CHECKPOINT_INTERVAL = FRAMES_PER_SECOND * 10;
+    private static final Color BACKGROUND_COLOR = new Color(10, 60, 100);
     private static final int PADDLE_WIDTH = 100;
     private static final int PADDLE_HEIGHT = 10;
     private static final int BALL_RADIUS = 5;
@@ -27,21 +43,46 @@ public class Game {
     private static final int NUM_ROWS = 5;
     private static final int BLOCKS_PER_ROW = 12;
     private SpriteCollection sprites;
+    private StaticLayer staticLayer;
     private GameEnvironment environment;
+    private HitEventBus hitEvents;
+    private boolean deferredHits;
     private GUI gui;
     private biuoop.Sleeper sleeper;
     private KeyboardSensor keyboard;
+    private TickInput input;
+    private AsyncKeyboard asyncKeyboard;   // null unless the keys are sampled on their own thread
+    private SessionRecorder recorder;
+    private GameProfiler profiler;
+    private final long seed;
+    private final Random random;
+    private long tick;
+    private Paddle paddle;
+    private BallSystem ballSystem;
+    private Block[] removableBlocks;   // the blocks to clear, in level order
+    private boolean eventDriven;
+    private boolean candidateCaching;
+    private boolean ballCollisions;
+    private boolean renderThread;
+    private volatile boolean rendering;
+    private ConcurrentLinkedQueue<StaticChange> staticChanges;   // null unless the render thread is running
     private Counter remainingBlocks;
     private Counter ballsCounter;
     private Counter score;
     private ScoreIndicator scoreIndicator;
+    private boolean finished;
 
     /**
      * Constructs a new GameSettings.Game object with default settings.
      */
     public Game() {
+        this.seed = System.nanoTime();
+        this.random = new Random(seed);
         this.sprites = new SpriteCollection();
+        this.staticLayer = new StaticLayer(GAME_WIDTH, GAME_HEIGHT, BACKGROUND_COLOR);
         this.environment = new GameEnvironment();
+        this.hitEvents = new HitEventBus();
+        this.hitEvents.setDeferring(false);
         this.gui = new GUI("Arkanoid", GAME_WIDTH, GAME_HEIGHT);
         this.sleeper = new biuoop.Sleeper();
         this.keyboard = gui.getKeyboardSensor();
@@ -51,6 +92,151 @@ public class Game {
         this.scoreIndicator = new ScoreIndicator(score);
     }
 
+    /**
+     * Constructs a new headless GameSettings.Game object.
+     * <p>
+     * No window is opened and the paddle is driven by the given script, so the game can only be advanced by
+     * {@link #runHeadless(long)}.
+     * @param input the per-tick input that stands in for the player, such as a ScriptedKeyboard
+     */
+    public Game(TickInput input) {
+        this(input, 0);
+    }
+
+    /**
+     * Constructs a new headless GameSettings.Game object whose random generator starts from the given seed.
+     * @param input the per-tick input that stands in for the player
+     * @param seed the seed of the random generator of the game
+     */
+    public Game(TickInput input, long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.sprites = new SpriteCollection();
+        this.staticLayer = new StaticLayer(GAME_WIDTH, GAME_HEIGHT, BACKGROUND_COLOR);
+        this.environment = new GameEnvironment();
+        this.hitEvents = new HitEventBus();
+        this.hitEvents.setDeferring(false);
+        this.input = input;
+        this.keyboard = input;
+        this.remainingBlocks = new Counter();
+        this.ballsCounter = new Counter();
+        this.score = new Counter();
+        this.scoreIndicator = new ScoreIndicator(score);
+    }
+
+    /**
+     * Samples the keyboard of a windowed game on its own thread at the given rate, timestamping every press and
+     * release, so the paddle moves for exactly as long as a key was held and short presses are never lost.
+     * Must be called before {@link #record(SessionRecorder)} and {@link #initialize()}. A recorded game only
+     * records whether each key was held during a tick, so its paddle moves by whole steps.
+     * @param sampleRate the number of times per second to sample the keys, such as
+     *                   {@link AsyncKeyboard#DEFAULT_SAMPLE_RATE}
+     */
+    public void setAsyncInput(int sampleRate) {
+        if (this.gui == null) {
+            throw new IllegalStateException("a headless game has no keyboard to sample");
+        }
+        if (this.paddle != null || this.recorder != null) {
+            throw new IllegalStateException("setAsyncInput must be called before record and initialize");
+        }
+        AsyncKeyboard async = new AsyncKeyboard();
+        async.startSampling(this.keyboard, sampleRate);
+        this.asyncKeyboard = async;
+        this.input = async;
+        this.keyboard = async;
+    }
+
+    /**
+     * Records the session to the given recorder: the seed, the level and the options that change how the game
+     * plays, the paddle input of every tick, and a state hash every few seconds and at the end. Must be called
+     * before {@link #initialize()}; the header is written when the game is initialized.
+     * @param sessionRecorder the recorder to write the session to
+     */
+    public void record(SessionRecorder sessionRecorder) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("record must be called before initialize");
+        }
+        this.recorder = sessionRecorder;
+        this.input = new RecordingKeyboard(this.keyboard, sessionRecorder);
+        this.keyboard = this.input;
+    }
+
+    /**
+     * Sets the spatial index the collidables that do not move are kept in, such as a BoundingVolumeHierarchy for
+     * levels whose blocks differ a lot in size. The collidables already in the game are moved into it.
+     * @param index the empty index to use
+     */
+    public void setCollisionIndex(CollisionIndex index) {
+        this.environment.setStaticIndex(index);
+    }
+
+    /**
+     * Sets whether the balls step by events, predicting their next impact with a static collidable once instead of
+     * querying the environment on every tick. The game plays the same either way.
+     * @param enabled true to step the balls by events
+     */
+    public void setEventDriven(boolean enabled) {
+        this.eventDriven = enabled;
+        if (this.ballSystem != null) {
+            this.ballSystem.setEventDriven(enabled);
+        }
+    }
+
+    /**
+     * Sets whether every ball keeps a cache of the static collidables around its path and queries only those,
+     * instead of searching the whole environment on every query. The game plays the same either way.
+     * @param enabled true to cache candidates
+     */
+    public void setCandidateCaching(boolean enabled) {
+        this.candidateCaching = enabled;
+        if (this.ballSystem != null) {
+            this.ballSystem.setCandidateCaching(enabled);
+        }
+    }
+
+    /**
+     * Sets whether the balls bounce off each other as elastic discs, instead of passing through each other as in
+     * the classic game. A recorded game must choose before {@link #initialize()}.
+     * @param enabled true to make the balls collide
+     */
+    public void setBallCollisions(boolean enabled) {
+        if (this.recorder != null && this.paddle != null && enabled != this.ballCollisions) {
+            throw new IllegalStateException("a recorded game can not change ball collisions after initialize");
+        }
+        this.ballCollisions = enabled;
+        if (this.ballSystem != null) {
+            this.ballSystem.setBallCollisions(enabled);
+        }
+    }
+
+    /**
+     * Sets whether a windowed game draws its frames on a separate render thread. The physics then steps at a fixed
+     * rate however long a frame takes to draw. Only the static sprites, the paddle, the balls and the score are
+     * drawn in this mode. Must be called before {@link #run()}.
+     * @param enabled true to render on a separate thread
+     */
+    public void setRenderThread(boolean enabled) {
+        this.renderThread = enabled;
+    }
+
+    /**
+     * Measures the game with the given profiler: every tick, frame and collision query is timed from now on.
+     * @param gameProfiler the profiler, or null to stop profiling
+     */
+    public void setProfiler(GameProfiler gameProfiler) {
+        this.profiler = gameProfiler;
+        this.environment.setProfiler(gameProfiler);
+        this.hitEvents.setProfiler(gameProfiler);
+    }
+
+    /**
+     * Returns the profiler measuring the game.
+     * @return the profiler, or null if the game is not profiled
+     */
+    public GameProfiler getProfiler() {
+        return this.profiler;
+    }
+
     /**
      * Adds a GameSettings.Game.GameObjects.Collidable.GameSettings.Game.GameObjects.Collidable object to the game environment.
      * @param c the GameSettings.Game.GameObjects.Collidable.GameSettings.Game.GameObjects.Collidable object to be added
@@ -59,111 +245,561 @@ public class Game {
         this.environment.addCollidable(c);
     }
 
+    /**
+     * Sets whether the blocks of the game queue their hits on the event bus of the game, which hands them to the
+     * listeners at the end of the tick, instead of notifying the listeners at once. Deferred hits never run
+     * listener code while the balls move, but a block that is about to be removed can then be hit by several balls
+     * in the same tick, and a ball that fell into the death region moves until the tick ends. Must be called before
+     * {@link #initialize()}.
+     * @param enabled true to defer hits to the end of the tick
+     */
+    public void setDeferredHits(boolean enabled) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("setDeferredHits must be called before initialize");
+        }
+        this.deferredHits = enabled;
+        this.hitEvents.setDeferring(enabled);
+    }
+
+    /**
+     * Returns whether the blocks of the game queue their hits until the end of the tick.
+     * @return true if hits are deferred
+     */
+    public boolean isDeferringHits() {
+        return this.deferredHits;
+    }
+
+    /**
+     * Returns the bus the blocks of the game send their hits through. It queues them when hits are deferred, and
+     * is dispatched at the end of every tick.
+     * @return the hit event bus
+     */
+    public HitEventBus getHitEvents() {
+        return this.hitEvents;
+    }
+
+    /**
+     * Makes a group of blocks that share the given listeners. The blocks send their hits through the event bus of
+     * the game, which queues them if the game defers hits, and notifies the listeners at once otherwise.
+     * @param listeners the listeners every block of the group starts with
+     * @return the new block group
+     */
+    public BlockGroup newBlockGroup(HitListener... listeners) {
+        return new BlockGroup(this.hitEvents, listeners);
+    }
+
+    /**
+     * Adds many blocks to the game at once, in order, as both collidables and sprites.
+     * Blocks added this way must have been made by a block group of this game, so their hits are deferred or not as
+     * the game says. While the render thread is running, the blocks are handed to it like any other static sprite.
+     * @param blocks the blocks to add
+     */
+    public void addBlocks(List<Block> blocks) {
+        this.environment.addCollidables(blocks);
+        ConcurrentLinkedQueue<StaticChange> changes = this.staticChanges;
+        if (changes != null) {
+            for (Block block : blocks) {
+                changes.add(new StaticChange(this.tick, block, true));
+            }
+        } else {
+            this.staticLayer.addSprites(blocks);
+        }
+    }
+
     /**
      * Adds a GameObjects.Sprite object to the game.
+     * Static sprites are drawn from a cached layer and are not notified that time has passed.
      * @param s the GameObjects.Sprite object to be added
      */
     public void addSprite(Sprite s) {
+        if (s instanceof StaticSprite) {
+            ConcurrentLinkedQueue<StaticChange> changes = this.staticChanges;
+            if (changes != null) {
+                changes.add(new StaticChange(this.tick, (StaticSprite) s, true));
+            } else {
+                this.staticLayer.addSprite((StaticSprite) s);
+            }
+            return;
+        }
         this.sprites.addSprite(s);
     }
 
     /**
-     * Initializes the game by creating the game environment, adding the borders, paddle, ball, and blocks.
+     * Initializes the game with the default level: the borders, paddle, three balls, and a triangle of blocks.
      */
     public void initialize() {
+        initialize(new LevelFile(defaultLevel().toByteBuffer()));
+    }
+
+    /**
+     * Initializes the game with the given level, streaming its blocks into the game one after the other.
+     * @param level the level to play
+     */
+    public void initialize(LevelFile level) {
+        if (this.recorder != null) {
+            this.recorder.start(this.seed, CHECKPOINT_INTERVAL, level.checksum(),
+                    (this.ballCollisions ? SessionLog.BALL_COLLISIONS : 0)
+                            | (this.deferredHits ? SessionLog.DEFERRED_HITS : 0));
+        }
         BlockRemover blockRemover = new BlockRemover(this, remainingBlocks);
         ScoreTrackingListener scoreListener = new ScoreTrackingListener(score);
-
-        // create the game environment and add the borders
-        Block upperBorder = new Block(new Rectangle(new Point(0, 0), 800, 30, Color.gray));
-        Block leftBorder = new Block(new Rectangle(new Point(0, 30), 30, 570, Color.gray));
-        Block rightBorder = new Block(new Rectangle(new Point(770, 30), 30, 570, Color.gray));
-        Block death = new Block(new Rectangle(new Point(0, 570), 800, 30, Color.gray));
-        this.environment.addCollidable(upperBorder);
-        this.environment.addCollidable(leftBorder);
-        this.environment.addCollidable(rightBorder);
-        this.environment.addCollidable(death);
-        leftBorder.addToGame(this);
-        upperBorder.addToGame(this);
-        death.addToGame(this);
-        rightBorder.addToGame(this);
-        death.addHitListener(new BallRemover(this, ballsCounter));
+        BallRemover ballRemover = new BallRemover(this, ballsCounter);
+        Map<Integer, Color> colors = new HashMap<>();
+        // blocks with the same flags share one group, and so one listener array
+        BlockGroup[] groups = new BlockGroup[(LevelFile.REMOVABLE | LevelFile.SCORES | LevelFile.DEATH) + 1];
+        for (int flags = 0; flags < groups.length; flags++) {
+            List<HitListener> listeners = new ArrayList<>();
+            if ((flags & LevelFile.REMOVABLE) != 0) {
+                listeners.add(blockRemover);
+            }
+            if ((flags & LevelFile.SCORES) != 0) {
+                listeners.add(scoreListener);
+            }
+            if ((flags & LevelFile.DEATH) != 0) {
+                listeners.add(ballRemover);
+            }
+            groups[flags] = newBlockGroup(listeners.toArray(new HitListener[0]));
+        }
 
         // create the paddle
-        Paddle paddle = new Paddle(new Point(375, 550),
-                PADDLE_WIDTH, PADDLE_HEIGHT,
-                Color.cyan, this.keyboard);
+        this.paddle = new Paddle(new Point(level.getPaddleX(), level.getPaddleY()),
+                level.getPaddleWidth(), level.getPaddleHeight(),
+                colorOf(level.getPaddleColor(), colors), this.keyboard);
         paddle.addToGame(this);
 
-        // create the balls
-        Ball ball = new Ball(new Point(400, 400), BALL_RADIUS, Color.pink,
-                this.environment);
-        Velocity initialVelocity = Velocity.fromAngleAndSpeed(90, BALL_SPEED);
-        ball.setVelocity(initialVelocity);
-        ball.addToGame(this);
-        ballsCounter.increase(1);
-
-        Ball ball2 = new Ball(new Point(300, 300), BALL_RADIUS, Color.pink,
-                this.environment);
-        initialVelocity = Velocity.fromAngleAndSpeed(70, BALL_SPEED);
-        ball2.setVelocity(initialVelocity);
-        ball2.addToGame(this);
-        ballsCounter.increase(1);
-
-        Ball ball3 = new Ball(new Point(400, 400), BALL_RADIUS,
-                Color.pink,
-                this.environment);
-         initialVelocity = Velocity.fromAngleAndSpeed(80,
-                BALL_SPEED);
-        ball3.setVelocity(initialVelocity);
-        ball3.addToGame(this);
-        ballsCounter.increase(1);
+        // create the balls, stepped together by a ball system
+        this.ballSystem = new BallSystem(this.environment);
+        ballSystem.setEventDriven(this.eventDriven);
+        ballSystem.setCandidateCaching(this.candidateCaching);
+        ballSystem.setBallCollisions(this.ballCollisions);
+        ballSystem.addToGame(this);
+        for (int i = 0; i < level.getBallCount(); i++) {
+            Ball ball = new Ball(new Point(level.getBallX(i), level.getBallY(i)), level.getBallRadius(i),
+                    colorOf(level.getBallColor(i), colors), this.environment);
+            ball.setVelocity(Velocity.fromAngleAndSpeed(level.getBallAngle(i), level.getBallSpeed(i)));
+            ballSystem.addBall(ball);
+            ballsCounter.increase(1);
+        }
+
+        // create the borders and the blocks, then add them all in level order
+        List<Block> blocks = new ArrayList<>(level.getBlockCount());
+        List<Block> removable = new ArrayList<>();
+        for (int i = 0; i < level.getBlockCount(); i++) {
+            int flags = level.getBlockFlags(i) & (groups.length - 1);
+            Block block = groups[flags].newBlock(new Rectangle(new Point(level.getBlockX(i), level.getBlockY(i)),
+                    level.getBlockWidth(i), level.getBlockHeight(i), colorOf(level.getBlockColor(i), colors)));
+            blocks.add(block);
+            if ((flags & LevelFile.REMOVABLE) != 0) {
+                removable.add(block);
+                this.remainingBlocks.increase(1);
+            }
+        }
+        this.removableBlocks = removable.toArray(new Block[0]);
+        addBlocks(blocks);
+    }
+
+    /**
+     * Builds the default level: gray borders with a death region at the bottom, a cyan paddle, three pink balls,
+     * and rows of blocks that get shorter towards the bottom, aligned to the right border.
+     * @return the default level
+     */
+    public static LevelWriter defaultLevel() {
+        LevelWriter level = new LevelWriter();
+        int gray = Color.gray.getRGB() & 0xFFFFFF;
+        level.block(0, 0, 800, 30, gray, 0);
+        level.block(0, 30, 30, 570, gray, 0);
+        level.block(770, 30, 30, 570, gray, 0);
+        level.block(0, 570, 800, 30, gray, LevelFile.DEATH);
+        level.paddle(375, 550, PADDLE_WIDTH, PADDLE_HEIGHT, Color.cyan.getRGB() & 0xFFFFFF);
+        int pink = Color.pink.getRGB() & 0xFFFFFF;
+        level.ball(400, 400, BALL_RADIUS, 90, BALL_SPEED, pink);
+        level.ball(300, 300, BALL_RADIUS, 70, BALL_SPEED, pink);
+        level.ball(400, 400, BALL_RADIUS, 80, BALL_SPEED, pink);
         Color[] colors = {Color.RED, Color.ORANGE, Color.YELLOW, Color.GREEN, Color.BLUE};
         int x = 770 - BLOCK_WIDTH; // Start from the right side of the screen
         int y = 100;
         for (int i = 0; i < NUM_ROWS; i++) {
             for (int j = 0; j < BLOCKS_PER_ROW - i; j++) {
-                Block block =
-                        new Block(new Rectangle(new Point(x - j * (BLOCK_WIDTH), y + i * (BLOCK_HEIGHT)),
-                                BLOCK_WIDTH, BLOCK_HEIGHT, colors[i]));
-                block.addHitListener(blockRemover);
-                block.addHitListener(scoreListener);
-                this.remainingBlocks.increase(1);
-                block.addToGame(this);
+                level.block(x - j * (BLOCK_WIDTH), y + i * (BLOCK_HEIGHT), BLOCK_WIDTH, BLOCK_HEIGHT,
+                        colors[i].getRGB() & 0xFFFFFF, LevelFile.REMOVABLE | LevelFile.SCORES);
             }
         }
+        return level;
+    }
+
+    private static Color colorOf(int rgb, Map<Integer, Color> colors) {
+        return colors.computeIfAbsent(rgb, Color::new);
     }
 
     /**
      * Runs the game in default setting.
+     * A headless game is simulated until it ends.
      */
     public void run() {
-        int millisecondsPerFrame = 1000 / FRAMES_PER_SECOND;
-        while (this.remainingBlocks.getValue() > 0 && this.ballsCounter.getValue() > 0) {
-            long startTime = System.currentTimeMillis(); // timing
+        if (this.gui == null) {
+            runHeadless(Long.MAX_VALUE);
+            return;
+        }
+        if (this.renderThread) {
+            runWithRenderThread();
+            return;
+        }
+        long nanosPerStep = NANOS_PER_SECOND / FRAMES_PER_SECOND;
+        long accumulator = 0;
+        long previousTime = System.nanoTime();
+        while (isRunning()) {
+            GameProfiler p = this.profiler;
+            if (p != null) {
+                p.beginFrame();
+            }
+            long frameStart = System.nanoTime();
+            // clamp long stalls so the simulation does not spiral trying to catch up
+            accumulator += Math.min(frameStart - previousTime, MAX_CATCH_UP_STEPS * nanosPerStep);
+            previousTime = frameStart;
+
+            // advance the physics in fixed steps, catching up if the last frame was slow
+            while (accumulator >= nanosPerStep && isRunning()) {
+                step();
+                accumulator -= nanosPerStep;
+            }
 
+            // draw the state between the last two physics steps
+            long renderStart = System.nanoTime();
+            double alpha = (double) accumulator / nanosPerStep;
             DrawSurface d = gui.getDrawSurface();
-            d.setColor(new Color(10, 60, 100));
-            d.fillRectangle(0, 0, GAME_WIDTH, GAME_HEIGHT);
-            this.sprites.drawAllOn(d);
-            scoreIndicator.drawOn(d);
+            drawFrame(d, alpha);
             gui.show(d);
-            this.sprites.notifyAllTimePassed();
+            if (p != null) {
+                p.recordRender(System.nanoTime() - renderStart);
+                p.endFrame();
+            }
 
+            // sleep until the next physics step is due
+            long nanosLeftToSleep = nanosPerStep - accumulator - (System.nanoTime() - frameStart);
+            if (nanosLeftToSleep >= NANOS_PER_MILLISECOND) {
+                sleeper.sleepFor(nanosLeftToSleep / NANOS_PER_MILLISECOND);
+            }
+        }
+        finish();
+        closeInput();
+        this.gui.close();
+    }
 
-            // timing
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
+    /**
+     * Runs the physics on the calling thread at a fixed rate, publishing a snapshot after every tick, while a render
+     * thread draws the latest snapshot as often as it can, up to the frame rate.
+     */
+    private void runWithRenderThread() {
+        SnapshotExchange exchange = new SnapshotExchange();
+        publish(exchange);
+        this.staticChanges = new ConcurrentLinkedQueue<>();
+        this.rendering = true;
+        Thread renderer = new Thread(() -> render(exchange), "Arkanoid renderer");
+        renderer.setDaemon(true);
+        renderer.start();
+
+        long nanosPerStep = NANOS_PER_SECOND / FRAMES_PER_SECOND;
+        long nextStep = System.nanoTime();
+        while (isRunning()) {
+            GameProfiler p = this.profiler;
+            if (p != null) {
+                p.beginFrame();
+                step();
+                p.endFrame();
+            } else {
+                step();
+            }
+            publish(exchange);
+
+            // sleep until the next step is due, dropping steps that are too far behind
+            nextStep += nanosPerStep;
+            long now = System.nanoTime();
+            nextStep = Math.max(nextStep, now - MAX_CATCH_UP_STEPS * nanosPerStep);
+            long nanosLeftToSleep = nextStep - now;
+            if (nanosLeftToSleep >= NANOS_PER_MILLISECOND) {
+                sleeper.sleepFor(nanosLeftToSleep / NANOS_PER_MILLISECOND);
             }
         }
-        if (remainingBlocks.getValue() == 0) {
-            score.increase(100);
+
+        this.rendering = false;
+        boolean interrupted = false;
+        while (renderer.isAlive()) {
+            try {
+                renderer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
         }
+        // the static layer belongs to this thread again
+        applyStaticChanges(Long.MAX_VALUE);
+        this.staticChanges = null;
+        finish();
+        closeInput();
         this.gui.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeInput() {
+        if (this.asyncKeyboard != null) {
+            this.asyncKeyboard.close();
+        }
+    }
+
+    private void publish(SnapshotExchange exchange) {
+        exchange.back().capture(this.tick, this.score.getValue(), this.paddle, this.ballSystem);
+        exchange.publish();
+    }
+
+    /**
+     * The loop of the render thread: draws the latest snapshot over the static layer, between the last two ticks
+     * according to how long ago it was published, until the game thread stops it.
+     * @param exchange the exchange the game thread publishes snapshots through
+     */
+    private void render(SnapshotExchange exchange) {
+        long nanosPerFrame = NANOS_PER_SECOND / FRAMES_PER_SECOND;
+        biuoop.Sleeper frameSleeper = new biuoop.Sleeper();
+        while (this.rendering) {
+            long frameStart = System.nanoTime();
+            WorldSnapshot snapshot = exchange.latest();
+            applyStaticChanges(snapshot.getTick());
+            // frames and ticks share one rate, so a snapshot is a frame old when the next one is due
+            double alpha = Math.min(1, (double) (frameStart - snapshot.getPublishNanos()) / nanosPerFrame);
+            DrawSurface d = gui.getDrawSurface();
+            this.staticLayer.drawOn(d);
+            snapshot.drawOn(d, alpha);
+            gui.show(d);
+            GameProfiler p = this.profiler;
+            if (p != null) {
+                p.recordRender(System.nanoTime() - frameStart);
+            }
+
+            long nanosLeftToSleep = nanosPerFrame - (System.nanoTime() - frameStart);
+            if (nanosLeftToSleep >= NANOS_PER_MILLISECOND) {
+                frameSleeper.sleepFor(nanosLeftToSleep / NANOS_PER_MILLISECOND);
+            }
+        }
+    }
+
+    /**
+     * Applies to the static layer the queued changes made during the ticks before the given one, so the layer
+     * matches the snapshot drawn over it.
+     * @param beforeTick the tick of the snapshot about to be drawn
+     */
+    private void applyStaticChanges(long beforeTick) {
+        ConcurrentLinkedQueue<StaticChange> changes = this.staticChanges;
+        StaticChange change;
+        while ((change = changes.peek()) != null && change.tick < beforeTick) {
+            changes.poll();
+            if (change.added) {
+                this.staticLayer.addSprite(change.sprite);
+            } else {
+                this.staticLayer.removeSprite(change.sprite);
+            }
+        }
+    }
+
+    /**
+     * Draws a frame of the game on the given DrawSurface: the static layer, then every other sprite between its
+     * previous and current state, then the score. Any DrawSurface will do, such as a {@link SoftwareSurface} for
+     * a headless game.
+     * @param d the DrawSurface to draw on, at least as large as the game
+     * @param alpha how far between the previous (0) and the current (1) state to draw
+     */
+    public void drawFrame(DrawSurface d, double alpha) {
+        this.staticLayer.drawOn(d);
+        this.sprites.drawAllOn(d, alpha);
+        this.scoreIndicator.drawOn(d);
+    }
+
+    /**
+     * Returns the width of the game area, and of its window.
+     * @return the width, in pixels
+     */
+    public int getWidth() {
+        return GAME_WIDTH;
+    }
+
+    /**
+     * Returns the height of the game area, and of its window.
+     * @return the height, in pixels
+     */
+    public int getHeight() {
+        return GAME_HEIGHT;
+    }
+
+    /**
+     * Simulates the game as fast as possible, without drawing or sleeping, until it ends or the tick limit is
+     * reached.
+     * @param maxTicks the maximum number of ticks to simulate
+     * @return the number of ticks that were simulated
+     */
+    public long runHeadless(long maxTicks) {
+        long ticks = 0;
+        while (ticks < maxTicks && isRunning()) {
+            GameProfiler p = this.profiler;
+            if (p != null) {
+                p.beginFrame();
+                step();
+                p.endFrame();
+            } else {
+                step();
+            }
+            ticks++;
+        }
+        if (!isRunning()) {
+            finish();
+        }
+        return ticks;
     }
 
+    /**
+     * Advances the game one tick: samples the input, lets every sprite know that time has passed, then hands the
+     * deferred hits of the tick, if any, to their listeners.
+     */
+    private void step() {
+        if (this.input != null) {
+            this.input.nextTick();
+        }
+        GameProfiler p = this.profiler;
+        if (p == null) {
+            this.sprites.notifyAllTimePassed();
+            this.hitEvents.dispatchAll();
+        } else {
+            long start = System.nanoTime();
+            this.sprites.notifyAllTimePassed();
+            long physicsEnd = System.nanoTime();
+            this.hitEvents.dispatchAll();
+            p.recordTick(physicsEnd - start, System.nanoTime() - physicsEnd);
+        }
+        this.tick++;
+        if (this.recorder != null && this.tick % CHECKPOINT_INTERVAL == 0) {
+            this.recorder.checkpoint(this.tick, stateHash());
+        }
+    }
+
+    /**
+     * Returns whether the game still has blocks to clear and balls to clear them with.
+     * @return true if the game has not ended yet
+     */
+    public boolean isRunning() {
+        return this.remainingBlocks.getValue() > 0 && this.ballsCounter.getValue() > 0;
+    }
+
+    /**
+     * Returns the current score.
+     * @return the score
+     */
+    public int getScore() {
+        return this.score.getValue();
+    }
+
+    /**
+     * Returns the number of blocks left to clear.
+     * @return the number of remaining blocks
+     */
+    public int getRemainingBlocks() {
+        return this.remainingBlocks.getValue();
+    }
+
+    /**
+     * Returns the number of blocks the level started with that have to be cleared.
+     * @return the number of removable blocks of the level
+     */
+    public int getRemovableBlockCount() {
+        return this.removableBlocks == null ? 0 : this.removableBlocks.length;
+    }
+
+    /**
+     * Returns whether a removable block of the level is still in the game.
+     * @param i the index of the block among the removable blocks, in level order
+     * @return true if the block was not cleared yet
+     */
+    public boolean isRemovableBlockLeft(int i) {
+        return this.environment.contains(this.removableBlocks[i]);
+    }
+
+    /**
+     * Returns the paddle of the game.
+     * @return the paddle, or null before the game was initialized
+     */
+    public Paddle getPaddle() {
+        return this.paddle;
+    }
+
+    /**
+     * Returns the ball system that holds every ball in play.
+     * @return the ball system, or null before the game was initialized
+     */
+    public BallSystem getBallSystem() {
+        return this.ballSystem;
+    }
+
+    /**
+     * Returns the number of balls still in play.
+     * @return the number of balls
+     */
+    public int getRemainingBalls() {
+        return this.ballsCounter.getValue();
+    }
+
+    /**
+     * Returns the number of ticks simulated so far.
+     * @return the current tick
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Returns the seed the random generator of the game started from.
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the random generator of the game. Anything random in a game must be drawn from it, so a recorded
+     * session replays the same way.
+     * @return the random generator
+     */
+    public Random getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Returns a hash of the simulation state: the tick, the counters, the paddle and every ball.
+     * Two games that were given the same seed and input have the same hash after the same tick.
+     * @return the state hash
+     */
+    public long stateHash() {
+        long hash = this.tick;
+        hash = 31 * hash + this.score.getValue();
+        hash = 31 * hash + this.remainingBlocks.getValue();
+        hash = 31 * hash + this.ballsCounter.getValue();
+        if (this.paddle != null) {
+            hash = 31 * hash + Double.doubleToLongBits(this.paddle.getCollisionRectangle().getLeft());
+        }
+        if (this.ballSystem != null) {
+            hash = 31 * hash + this.ballSystem.stateHash();
+        }
+        return hash;
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (remainingBlocks.getValue() == 0) {
+            score.increase(100);
+        }
+        if (this.recorder != null) {
+            this.recorder.end(this.tick, stateHash());
+        }
+    }
 
     /**
      * Removes a Collidable object from the game environment.
@@ -178,6 +814,30 @@ public class Game {
      * @param s the Sprite object to be removed
      */
     public void removeSprite(Sprite s) {
+        if (s instanceof StaticSprite) {
+            ConcurrentLinkedQueue<StaticChange> changes = this.staticChanges;
+            if (changes != null) {
+                changes.add(new StaticChange(this.tick, (StaticSprite) s, false));
+            } else {
+                staticLayer.removeSprite((StaticSprite) s);
+            }
+            return;
+        }
         sprites.removeSprite(s);
     }
+
+    /**
+     * A static sprite added or removed during a tick, waiting for the render thread to apply it.
+     */
+    private static final class StaticChange {
+        private final long tick;
+        private final StaticSprite sprite;
+        private final boolean added;
+
+        StaticChange(long tick, StaticSprite sprite, boolean added) {
+            this.tick = tick;
+            this.sprite = sprite;
+            this.added = added;
+        }
+    }
 }
@@ -3,29 +3,95 @@ package GameSettings;
 import GameObjects.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The GameSettings.GameEnvironment class represents the environment in which a game takes place.
  * <p>
  * It manages a collection of GameSettings.Game.GameObjects.Collidable.GameSettings.Game.GameObjects.Collidable objects and provides methods for detecting collisions between them.
+ * Collidables that do not move are kept in a {@link CollisionIndex}, by default a {@link CollisionGrid}, or a
+ * {@link BoundingVolumeHierarchy} for levels whose blocks differ a lot in size, so a collision query only tests the
+ * collidables near the trajectory. A {@link LinearScan} tests them all, and every index finds the same collidable.
+ * Moving collidables are always tested.
+ * <p>
+ * Every collidable has an entry that remembers its slot in a dense array, so adding and removing a collidable takes
+ * constant time, apart from updating the static index.
  */
 public class GameEnvironment {
-    private List<Collidable> collidables;
+    private Entry[] slots;
+    private int size;
+    private Map<Collidable, Entry> entries;
+    private List<Entry> movingEntries;
+    private CollisionIndex staticIndex;
+    private long nextOrder;
+    private long modificationCount;
+    private long additionCount;
+    private GameProfiler profiler;
 
     /**
      * Creates a new GameSettings.GameEnvironment object with an empty collection of collidables.
      */
     public GameEnvironment() {
-        this.collidables = new ArrayList<>();
+        this(new CollisionGrid());
+    }
+
+    /**
+     * Creates a new GameSettings.GameEnvironment object with an empty collection of collidables, that keeps the
+     * collidables that do not move in the given index.
+     * @param staticIndex the empty index for collidables that do not move
+     */
+    public GameEnvironment(CollisionIndex staticIndex) {
+        this.slots = new Entry[16];
+        this.entries = new IdentityHashMap<>();
+        this.movingEntries = new ArrayList<>();
+        this.staticIndex = staticIndex;
     }
 
     /**
      * Adds a collidable object to the collection of collidables.
+     * A collidable added more than once stays until it is removed as many times.
      * @param c the collidable object to add
      */
     public void addCollidable(Collidable c) {
-        collidables.add(c);
+        modificationCount++;
+        additionCount++;
+        Entry entry = entries.get(c);
+        if (entry != null) {
+            entry.count++;
+            return;
+        }
+        entry = new Entry(c, nextOrder++);
+        entries.put(c, entry);
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        entry.slot = size;
+        slots[size++] = entry;
+        if (c.isMoving()) {
+            movingEntries.add(entry);
+        } else {
+            staticIndex.insert(entry);
+        }
+    }
+
+    /**
+     * Adds many collidable objects at once, in order, growing the bookkeeping once for all of them.
+     * @param cs the collidable objects to add
+     */
+    public void addCollidables(Collection<? extends Collidable> cs) {
+        if (entries.isEmpty()) {
+            entries = new IdentityHashMap<>(cs.size());
+        }
+        if (size + cs.size() > slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, size + cs.size()));
+        }
+        for (Collidable c : cs) {
+            addCollidable(c);
+        }
     }
 
     /**
@@ -33,41 +99,307 @@ public class GameEnvironment {
      * @param c the collidable object to remove
      */
     public void removeCollidable(Collidable c) {
-        collidables.remove(c);
+        Entry entry = entries.get(c);
+        if (entry == null) {
+            return;
+        }
+        modificationCount++;
+        if (--entry.count > 0) {
+            return;
+        }
+        // a count of 0 marks the entry as removed to the candidate caches that still hold it
+        entries.remove(c);
+        // move the last entry into the freed slot
+        Entry last = slots[--size];
+        slots[entry.slot] = last;
+        last.slot = entry.slot;
+        slots[size] = null;
+        if (c.isMoving()) {
+            movingEntries.remove(entry);
+        } else {
+            staticIndex.remove(entry);
+        }
     }
 
     /**
      * Returns information about the closest collision that is going to occur between a line trajectory and a collidable
      * object in this collection.
      * If no collision occurs, returns null.
+     * When several collidables are hit at the same distance, the one that was added first wins.
+     * Only a trajectory entering a collision rectangle from outside collides with it.
      * @param trajectory the line trajectory of the moving object
      * @return the GameSettings.Game.GameObjects.Collidable.GameObjects.CollisionInfo object representing the closest collision that is going to occur, or null if no
      *         collision will occur
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
-        Point closestPoint = null;
-        Collidable closestObject = null;
-        double closestDistance = Double.POSITIVE_INFINITY;
-        for (Collidable c : collidables) {
-            Rectangle rect = c.getCollisionRectangle();
-            List<Point> intersectionPoints = rect.intersectionPoints(trajectory);
-            if (intersectionPoints.size() > 0) {
-                Point intersectionPoint = intersectionPoints.get(0);
-                double distance = intersectionPoint.distance(trajectory.start());
-                if (distance < closestDistance) {
-                    closestDistance = distance;
-                    closestPoint = intersectionPoint;
-                    closestObject = c;
-                }
+        return getClosestCollision(trajectory.start().getX(), trajectory.start().getY(),
+                trajectory.end().getX(), trajectory.end().getY());
+    }
+
+    /**
+     * Returns information about the closest collision that is going to occur between the segment from (x1, y1) to
+     * (x2, y2) and a collidable object in this collection.
+     * Nothing is allocated unless a collision is found.
+     * @param x1 the x coordinate of the start of the trajectory
+     * @param y1 the y coordinate of the start of the trajectory
+     * @param x2 the x coordinate of the end of the trajectory
+     * @param y2 the y coordinate of the end of the trajectory
+     * @return the closest collision, or null if no collision will occur
+     */
+    public CollisionInfo getClosestCollision(double x1, double y1, double x2, double y2) {
+        return getClosestCollision(x1, y1, x2, y2, 0);
+    }
+
+    /**
+     * Returns information about the first collidable object a circle moving from (x1, y1) to (x2, y2) touches.
+     * Every collision rectangle is grown by the radius of the circle, and only a center entering a grown rectangle
+     * from outside counts, so a circle that is already touching a collidable can always move away from it.
+     * The collision point is the point on the collision rectangle that the circle touches.
+     * Nothing is allocated unless a collision is found.
+     * @param x1 the x coordinate of the center of the circle at the start of the trajectory
+     * @param y1 the y coordinate of the center of the circle at the start of the trajectory
+     * @param x2 the x coordinate of the center of the circle at the end of the trajectory
+     * @param y2 the y coordinate of the center of the circle at the end of the trajectory
+     * @param radius the radius of the circle, 0 for a point
+     * @return the closest collision, or null if no collision will occur
+     */
+    public CollisionInfo getClosestCollision(double x1, double y1, double x2, double y2, double radius) {
+        GameProfiler p = this.profiler;
+        if (p == null) {
+            return closestCollision(x1, y1, x2, y2, radius);
+        }
+        long start = System.nanoTime();
+        CollisionInfo collisionInfo = closestCollision(x1, y1, x2, y2, radius);
+        p.recordQuery(System.nanoTime() - start);
+        return collisionInfo;
+    }
+
+    /**
+     * Returns information about the closest collision of a circle moving along a segment with the collidables that
+     * do not move, ignoring the moving ones.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param radius the radius of the circle, 0 for a point
+     * @return the closest collision with a static collidable, or null if there is none
+     */
+    public CollisionInfo getClosestStaticCollision(double x1, double y1, double x2, double y2, double radius) {
+        GameProfiler p = this.profiler;
+        long start = p == null ? 0 : System.nanoTime();
+        CollisionInfo collisionInfo = null;
+        Entry winner = staticIndex.closest(x1, y1, x2, y2, radius, null, Double.POSITIVE_INFINITY);
+        if (winner != null) {
+            Rectangle rect = winner.collidable.getCollisionRectangle();
+            double t = sweptEntryTime(x1, y1, x2, y2, radius, rect);
+            collisionInfo = new CollisionInfo(RayCast.sweptContactPoint(x1, y1, x2, y2, radius, rect, t),
+                    winner.collidable, t);
+        }
+        if (p != null) {
+            p.recordQuery(System.nanoTime() - start);
+        }
+        return collisionInfo;
+    }
+
+    /**
+     * Adds the static collidables whose collision rectangles overlap a box to a list, each once.
+     */
+    void collectStatic(double minX, double minY, double maxX, double maxY, List<Entry> into) {
+        staticIndex.collect(minX, minY, maxX, maxY, into);
+    }
+
+    /**
+     * Returns information about the closest collision of a circle moving along a segment with the moving
+     * collidables and the given static ones, which must hold every static collidable near the segment.
+     * Candidates that were removed from the environment since they were collected are skipped.
+     */
+    CollisionInfo getClosestCollision(List<Entry> candidates, double x1, double y1, double x2, double y2,
+                                      double radius) {
+        GameProfiler p = this.profiler;
+        long start = p == null ? 0 : System.nanoTime();
+        Entry closestEntry = null;
+        double closestTime = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < movingEntries.size(); i++) {
+            Entry entry = movingEntries.get(i);
+            double t = sweptEntryTime(x1, y1, x2, y2, radius, entry.collidable.getCollisionRectangle());
+            if (t != RayCast.MISS && CollisionIndex.isBetter(t, entry, closestTime, closestEntry)) {
+                closestTime = t;
+                closestEntry = entry;
             }
         }
-        if (closestObject == null) {
+        for (int i = 0; i < candidates.size(); i++) {
+            Entry entry = candidates.get(i);
+            if (entry.count == 0) {
+                continue;
+            }
+            double t = RayCast.sweptEntryTime(x1, y1, x2, y2, radius, entry.left, entry.top, entry.right,
+                    entry.bottom);
+            if (t != RayCast.MISS && CollisionIndex.isBetter(t, entry, closestTime, closestEntry)) {
+                closestTime = t;
+                closestEntry = entry;
+            }
+        }
+        CollisionInfo collisionInfo = null;
+        if (closestEntry != null) {
+            Rectangle rect = closestEntry.collidable.getCollisionRectangle();
+            collisionInfo = new CollisionInfo(RayCast.sweptContactPoint(x1, y1, x2, y2, radius, rect, closestTime),
+                    closestEntry.collidable, closestTime);
+        }
+        if (p != null) {
+            p.recordQuery(System.nanoTime() - start);
+        }
+        return collisionInfo;
+    }
+
+    /**
+     * Returns whether a circle moving along a segment touches any moving collidable. Only the moving collidables
+     * are tested, one after the other, so this is much cheaper than a full query.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param radius the radius of the circle, 0 for a point
+     * @return true if the circle touches a moving collidable
+     */
+    public boolean touchesMovingCollidable(double x1, double y1, double x2, double y2, double radius) {
+        for (int i = 0; i < movingEntries.size(); i++) {
+            Rectangle rect = movingEntries.get(i).collidable.getCollisionRectangle();
+            if (sweptEntryTime(x1, y1, x2, y2, radius, rect) != RayCast.MISS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the profiler that counts and times the collision queries.
+     * @param gameProfiler the profiler, or null to stop profiling
+     */
+    public void setProfiler(GameProfiler gameProfiler) {
+        this.profiler = gameProfiler;
+    }
+
+    private CollisionInfo closestCollision(double x1, double y1, double x2, double y2, double radius) {
+        Entry closestEntry = null;
+        double closestTime = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < movingEntries.size(); i++) {
+            Entry entry = movingEntries.get(i);
+            double t = sweptEntryTime(x1, y1, x2, y2, radius, entry.collidable.getCollisionRectangle());
+            if (t != RayCast.MISS && (t < closestTime || (t == closestTime && entry.order < closestEntry.order))) {
+                closestTime = t;
+                closestEntry = entry;
+            }
+        }
+        Entry winner = staticIndex.closest(x1, y1, x2, y2, radius, closestEntry, closestTime);
+        if (winner == null) {
             return null;
         }
-        return new CollisionInfo(closestPoint, closestObject);
+        Rectangle rect = winner.collidable.getCollisionRectangle();
+        double t = winner == closestEntry ? closestTime : sweptEntryTime(x1, y1, x2, y2, radius, rect);
+        return new CollisionInfo(RayCast.sweptContactPoint(x1, y1, x2, y2, radius, rect, t), winner.collidable, t);
+    }
+
+    private static double sweptEntryTime(double x1, double y1, double x2, double y2, double radius,
+                                         Rectangle rect) {
+        double left = rect.getLeft();
+        double top = rect.getTop();
+        return RayCast.sweptEntryTime(x1, y1, x2, y2, radius,
+                left, top, left + rect.getWidth(), top + rect.getHeight());
+    }
+
+    /**
+     * Moves the collidables that do not move into a new index, which is used from now on.
+     * @param index the empty index to use
+     */
+    public void setStaticIndex(CollisionIndex index) {
+        for (int i = 0; i < size; i++) {
+            if (!slots[i].collidable.isMoving()) {
+                index.insert(slots[i]);
+            }
+        }
+        this.staticIndex = index;
+        modificationCount++;
+    }
+
+    /**
+     * Returns the index that holds the collidables that do not move.
+     * @return the static index
+     */
+    public CollisionIndex getStaticIndex() {
+        return staticIndex;
+    }
+
+    /**
+     * Returns whether the given collidable is in the environment.
+     * @param c the collidable to look for
+     * @return true if the collidable was added and not removed since
+     */
+    public boolean contains(Collidable c) {
+        return entries.containsKey(c);
     }
 
+    /**
+     * Returns a counter that changes every time a collidable is added or removed.
+     * Queries made while the counter did not change see the same set of collidables.
+     * @return the modification counter
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns a counter that changes every time a collidable is added.
+     * @return the addition counter
+     */
+    public long getAdditionCount() {
+        return additionCount;
+    }
+
+    /**
+     * Returns the collidables in the environment, each collidable once, in the order they were added.
+     * The list is a copy: changing it does not change the environment, and it does not follow later changes to the
+     * environment.
+     * @return the collidables
+     */
     public List<Collidable> getCollidables() {
+        // removing a collidable moves the last slot into its place, so the slots are sorted back into added order
+        Entry[] ordered = Arrays.copyOf(slots, size);
+        Arrays.sort(ordered, (a, b) -> Long.compare(a.order, b.order));
+        List<Collidable> collidables = new ArrayList<>(size);
+        for (Entry entry : ordered) {
+            collidables.add(entry.collidable);
+        }
         return collidables;
     }
-}
\ No newline at end of file
+
+    /**
+     * The bookkeeping the environment keeps for every collidable it holds.
+     */
+    static final class Entry {
+        final Collidable collidable;
+        final double left;
+        final double top;
+        final double right;
+        final double bottom;
+        final long order;
+        int count;
+        int slot;
+        int leaf;       // the leaf of a BoundingVolumeHierarchy holding the entry, or -1
+        int leafSlot;   // the index of the entry among the entries of the leaves
+        int minCellX;
+        int maxCellX;
+        int minCellY;
+        int maxCellY;
+
+        Entry(Collidable collidable, long order) {
+            this.collidable = collidable;
+            Rectangle rect = collidable.getCollisionRectangle();
+            this.left = rect.getLeft();
+            this.top = rect.getTop();
+            this.right = left + rect.getWidth();
+            this.bottom = top + rect.getHeight();
+            this.order = order;
+            this.count = 1;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package GameSettings;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The GameProfiler class measures where the time of a game goes: the physics of every tick, the hit listeners,
+ * the collision queries and the drawing of every frame, the work time of whole frames, not counting the sleep
+ * until the next one, and the memory the game thread allocates in them.
+ * <p>
+ * A frame is one pass of the game loop. When the game draws on its own thread, a pass draws too; when a render
+ * thread draws, a pass is one tick, and the frames the render thread draws are counted and timed separately.
+ * Hit listeners that run while the balls move are timed as they run and counted as dispatch, not physics.
+ * <p>
+ * Measurements are summed over a report interval. When an interval ends, its summary is published to the
+ * {@link GameProfilerMBean} attributes and written as one log line, then the next interval starts from zero.
+ * The game thread records everything except collision queries, which may also come from the worker threads of a
+ * ball system and are summed in thread-safe adders, and drawn frames, which may come from a render thread.
+ */
+public class GameProfiler implements GameProfilerMBean {
+    /**
+     * The default length of a report interval, in seconds.
+     */
+    public static final int DEFAULT_REPORT_SECONDS = 10;
+
+    private static final Logger LOGGER = Logger.getLogger(GameProfiler.class.getName());
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final long reportIntervalNanos;
+    private final LatencyHistogram frameTimes;
+    private final LatencyHistogram renderTimes;   // guarded by itself, with renderFrames and renderNanos
+    private final LongAdder queries;
+    private final LongAdder queryNanos;
+    private final com.sun.management.ThreadMXBean allocations;
+    private long intervalStart;
+    private long frameStart;
+    private long frameAllocationStart;
+    private long frames;
+    private long ticks;
+    private long physicsNanos;
+    private long dispatchNanos;
+    private long tickDispatchNanos;   // the listener time recorded during the physics of the current tick
+    private long renderFrames;
+    private long renderNanos;
+    private long allocatedBytes;
+    private volatile Summary summary;
+    private ObjectName name;
+
+    /**
+     * Constructs a profiler that reports every DEFAULT_REPORT_SECONDS seconds.
+     */
+    public GameProfiler() {
+        this(DEFAULT_REPORT_SECONDS);
+    }
+
+    /**
+     * Constructs a profiler that reports at the given interval.
+     * @param reportSeconds the length of a report interval, in seconds
+     */
+    public GameProfiler(int reportSeconds) {
+        if (reportSeconds <= 0) {
+            throw new IllegalArgumentException("report interval must be positive: " + reportSeconds);
+        }
+        this.reportIntervalNanos = reportSeconds * 1_000_000_000L;
+        this.frameTimes = new LatencyHistogram();
+        this.renderTimes = new LatencyHistogram();
+        this.queries = new LongAdder();
+        this.queryNanos = new LongAdder();
+        this.allocations = allocationBean();
+        this.summary = new Summary();
+        this.intervalStart = System.nanoTime();
+    }
+
+    /**
+     * Registers the profiler with the platform MBean server, under the given name.
+     * @param objectName the name, such as "Arkanoid:type=GameProfiler"
+     * @throws JMException if the name is malformed or already taken
+     */
+    public void register(String objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName newName = new ObjectName(objectName);
+        server.registerMBean(this, newName);
+        this.name = newName;
+    }
+
+    /**
+     * Removes the profiler from the platform MBean server, if it was registered.
+     */
+    public void unregister() {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "could not unregister " + name, e);
+        }
+        name = null;
+    }
+
+    /**
+     * Marks the start of a frame.
+     */
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+        frameAllocationStart = allocatedByThisThread();
+    }
+
+    /**
+     * Records the time of hit listeners that ran while the sprites moved. The time is taken out of the physics
+     * time of the current tick when the tick is recorded, and counted as dispatch time instead.
+     * @param nanos the time spent in the listeners, in nanoseconds
+     */
+    public void recordDispatch(long nanos) {
+        tickDispatchNanos += nanos;
+    }
+
+    /**
+     * Records the time of one physics tick.
+     * @param physics the time spent moving the sprites, including the listeners recorded by
+     *                {@link #recordDispatch(long)} during the tick, in nanoseconds
+     * @param dispatch the time spent notifying the deferred hits at the end of the tick, in nanoseconds
+     */
+    public void recordTick(long physics, long dispatch) {
+        ticks++;
+        physicsNanos += physics - tickDispatchNanos;
+        dispatchNanos += dispatch + tickDispatchNanos;
+        tickDispatchNanos = 0;
+    }
+
+    /**
+     * Records the time spent drawing and showing a frame. Safe to call from any thread, such as a render thread.
+     * @param nanos the render time, in nanoseconds
+     */
+    public void recordRender(long nanos) {
+        synchronized (renderTimes) {
+            renderFrames++;
+            renderNanos += nanos;
+            renderTimes.record(nanos);
+        }
+    }
+
+    /**
+     * Records one collision query. Safe to call from any thread.
+     * @param nanos the time of the query, in nanoseconds
+     */
+    public void recordQuery(long nanos) {
+        queries.increment();
+        queryNanos.add(nanos);
+    }
+
+    /**
+     * Marks the end of a frame, and reports the interval if it is over.
+     */
+    public void endFrame() {
+        long now = System.nanoTime();
+        frames++;
+        frameTimes.record(now - frameStart);
+        if (frameAllocationStart >= 0) {
+            allocatedBytes += allocatedByThisThread() - frameAllocationStart;
+        }
+        if (now - intervalStart >= reportIntervalNanos) {
+            report(now);
+        }
+    }
+
+    /**
+     * Ends the current interval now, publishing and logging its summary.
+     */
+    public void flush() {
+        report(System.nanoTime());
+    }
+
+    /**
+     * Returns the summary of the last interval as one line, as it is logged.
+     * @return the summary line
+     */
+    @Override
+    public String toString() {
+        Summary s = summary;
+        return String.format("frames=%d ticks=%d frame p50=%.1fus p99=%.1fus max=%.1fus"
+                        + " physics=%.1fus/tick dispatch=%.1fus/tick"
+                        + " rendered=%d render=%.1fus/frame p50=%.1fus p99=%.1fus max=%.1fus"
+                        + " queries=%.1f/tick query=%.0fns alloc=%.0fB/frame",
+                s.frames, s.ticks, s.p50 / NANOS_PER_MICRO, s.p99 / NANOS_PER_MICRO, s.max / NANOS_PER_MICRO,
+                getPhysicsMicrosPerTick(), getDispatchMicrosPerTick(),
+                s.renderFrames, getRenderMicrosPerFrame(), s.renderP50 / NANOS_PER_MICRO,
+                s.renderP99 / NANOS_PER_MICRO, s.renderMax / NANOS_PER_MICRO,
+                getQueriesPerTick(), getQueryNanos(), getAllocatedBytesPerFrame());
+    }
+
+    @Override
+    public long getFrames() {
+        return summary.frames;
+    }
+
+    @Override
+    public long getTicks() {
+        return summary.ticks;
+    }
+
+    @Override
+    public double getFrameTimeP50Micros() {
+        return summary.p50 / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getFrameTimeP99Micros() {
+        return summary.p99 / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getFrameTimeMaxMicros() {
+        return summary.max / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getPhysicsMicrosPerTick() {
+        Summary s = summary;
+        return ratio(s.physicsNanos, s.ticks) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getDispatchMicrosPerTick() {
+        Summary s = summary;
+        return ratio(s.dispatchNanos, s.ticks) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getRenderFrames() {
+        return summary.renderFrames;
+    }
+
+    @Override
+    public double getRenderMicrosPerFrame() {
+        Summary s = summary;
+        return ratio(s.renderNanos, s.renderFrames) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRenderTimeP50Micros() {
+        return summary.renderP50 / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRenderTimeP99Micros() {
+        return summary.renderP99 / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRenderTimeMaxMicros() {
+        return summary.renderMax / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getQueriesPerTick() {
+        Summary s = summary;
+        return ratio(s.queries, s.ticks);
+    }
+
+    @Override
+    public double getQueryNanos() {
+        Summary s = summary;
+        return ratio(s.queryNanos, s.queries);
+    }
+
+    @Override
+    public double getAllocatedBytesPerFrame() {
+        Summary s = summary;
+        return s.allocatedBytes < 0 ? -1 : ratio(s.allocatedBytes, s.frames);
+    }
+
+    private void report(long now) {
+        Summary s = new Summary();
+        s.frames = frames;
+        s.ticks = ticks;
+        s.p50 = frameTimes.getPercentile(0.5);
+        s.p99 = frameTimes.getPercentile(0.99);
+        s.max = frameTimes.getMax();
+        s.physicsNanos = physicsNanos;
+        s.dispatchNanos = dispatchNanos;
+        synchronized (renderTimes) {
+            s.renderFrames = renderFrames;
+            s.renderNanos = renderNanos;
+            s.renderP50 = renderTimes.getPercentile(0.5);
+            s.renderP99 = renderTimes.getPercentile(0.99);
+            s.renderMax = renderTimes.getMax();
+            renderFrames = 0;
+            renderNanos = 0;
+            renderTimes.reset();
+        }
+        s.queries = queries.sumThenReset();
+        s.queryNanos = queryNanos.sumThenReset();
+        s.allocatedBytes = allocations == null ? -1 : allocatedBytes;
+        summary = s;
+
+        frames = 0;
+        ticks = 0;
+        physicsNanos = 0;
+        dispatchNanos = 0;
+        allocatedBytes = 0;
+        frameTimes.reset();
+        intervalStart = now;
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(toString());
+        }
+    }
+
+    private long allocatedByThisThread() {
+        return allocations == null ? -1 : allocations.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    private static double ratio(long total, long count) {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * The measurements of one completed report interval.
+     */
+    private static final class Summary {
+        private long frames;
+        private long ticks;
+        private long p50;
+        private long p99;
+        private long max;
+        private long physicsNanos;
+        private long dispatchNanos;
+        private long renderFrames;
+        private long renderNanos;
+        private long renderP50;
+        private long renderP99;
+        private long renderMax;
+        private long queries;
+        private long queryNanos;
+        private long allocatedBytes;
+    }
+}
@@ -0,0 +1,98 @@
+package GameSettings;
+
+/**
+ * The management interface of a {@link GameProfiler}. Every value covers the last completed report interval.
+ */
+public interface GameProfilerMBean {
+
+    /**
+     * Returns the number of frames in the last interval: passes of the game loop, which are ticks when a render
+     * thread draws.
+     * @return the number of frames
+     */
+    long getFrames();
+
+    /**
+     * Returns the number of physics ticks in the last interval.
+     * @return the number of ticks
+     */
+    long getTicks();
+
+    /**
+     * Returns the median frame time, the work time of a pass of the game loop.
+     * @return the 50th percentile, in microseconds
+     */
+    double getFrameTimeP50Micros();
+
+    /**
+     * Returns the 99th percentile of the frame time.
+     * @return the 99th percentile, in microseconds
+     */
+    double getFrameTimeP99Micros();
+
+    /**
+     * Returns the longest frame time.
+     * @return the maximum, in microseconds
+     */
+    double getFrameTimeMaxMicros();
+
+    /**
+     * Returns the average time spent moving the sprites in a tick.
+     * @return the average physics time, in microseconds
+     */
+    double getPhysicsMicrosPerTick();
+
+    /**
+     * Returns the average time spent notifying hit listeners in a tick.
+     * @return the average dispatch time, in microseconds
+     */
+    double getDispatchMicrosPerTick();
+
+    /**
+     * Returns the number of frames drawn in the last interval, by the game thread or a render thread.
+     * @return the number of drawn frames
+     */
+    long getRenderFrames();
+
+    /**
+     * Returns the average time spent drawing and showing a frame.
+     * @return the average render time, in microseconds
+     */
+    double getRenderMicrosPerFrame();
+
+    /**
+     * Returns the median time spent drawing and showing a frame.
+     * @return the 50th percentile, in microseconds
+     */
+    double getRenderTimeP50Micros();
+
+    /**
+     * Returns the 99th percentile of the time spent drawing and showing a frame.
+     * @return the 99th percentile, in microseconds
+     */
+    double getRenderTimeP99Micros();
+
+    /**
+     * Returns the longest time spent drawing and showing a frame.
+     * @return the maximum, in microseconds
+     */
+    double getRenderTimeMaxMicros();
+
+    /**
+     * Returns the average number of collision queries in a tick.
+     * @return the average number of queries
+     */
+    double getQueriesPerTick();
+
+    /**
+     * Returns the average time of one collision query.
+     * @return the average query time, in nanoseconds
+     */
+    double getQueryNanos();
+
+    /**
+     * Returns the average number of bytes the game thread allocated in a frame.
+     * @return the average allocation, or -1 if the JVM can not measure it
+     */
+    double getAllocatedBytesPerFrame();
+}
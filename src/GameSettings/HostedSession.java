@@ -0,0 +1,162 @@
+package GameSettings;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HostedSession class is one game run by a {@link SessionHost}, with the queues that connect it to its client.
+ * <p>
+ * The session waits in the queue of the host until its next tick is due, then one worker thread runs the ticks
+ * that are due and puts it back, so a game is only ever touched by one thread at a time. A session with a tick
+ * rate runs its ticks at that rate and catches up a few ticks after a late start. A session without one runs
+ * a batch of ticks every time its turn comes.
+ * <p>
+ * Every tick publishes a {@link SessionUpdate} to the client. When the client leaves UPDATE_CAPACITY updates
+ * unread, the session stops ticking until it reads some, so a slow client slows its own game down and nothing
+ * else.
+ */
+public class HostedSession implements Delayed {
+    /**
+     * The most updates a session keeps for its client before it stops ticking.
+     */
+    public static final int UPDATE_CAPACITY = 256;
+    /**
+     * The most ticks of input a client may queue ahead of its session.
+     */
+    public static final int INPUT_CAPACITY = 64;
+
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private static final int UNPACED_BATCH = 64;
+    // how long a session that its client stopped reading waits before it looks again
+    private static final long STALL_NANOS = 1_000_000L;
+
+    private final int id;
+    private final Game game;
+    private final SessionInput input;
+    private final BlockingQueue<SessionUpdate> updates;
+    private final long nanosPerTick;
+    private final LoopbackClient client;
+    private long due;
+    private volatile boolean finished;
+    private volatile boolean abandoned;
+
+    /**
+     * Constructs a session around an initialized game.
+     * @param id the number of the session in its host
+     * @param game the game to run, created with the given input
+     * @param input the input of the game
+     * @param ticksPerSecond the tick rate of the game, or 0 to run it as fast as the host can
+     * @param now the current System.nanoTime(), when the first tick is due
+     */
+    HostedSession(int id, Game game, SessionInput input, int ticksPerSecond, long now) {
+        this.id = id;
+        this.game = game;
+        this.input = input;
+        this.updates = new ArrayBlockingQueue<>(UPDATE_CAPACITY);
+        this.nanosPerTick = ticksPerSecond > 0 ? 1_000_000_000L / ticksPerSecond : 0;
+        this.due = now;
+        this.client = new LoopbackClient(this);
+    }
+
+    /**
+     * Runs the ticks that are due, as long as the client keeps up with the updates.
+     * @param now the current System.nanoTime()
+     * @return the number of ticks run, 0 if the client has too many updates unread
+     */
+    int runDue(long now) {
+        int room = updates.remainingCapacity();
+        if (room == 0) {
+            due = now + Math.max(nanosPerTick, STALL_NANOS);
+            return 0;
+        }
+        int ticks;
+        if (nanosPerTick == 0) {
+            ticks = Math.min(room, UNPACED_BATCH);
+        } else {
+            // catch up with the ticks missed since the first due one, but not with a long stall
+            long missed = (now - due) / nanosPerTick + 1;
+            ticks = (int) Math.min(Math.min(missed, MAX_CATCH_UP_TICKS), room);
+            due = Math.max(due + ticks * nanosPerTick, now - MAX_CATCH_UP_TICKS * nanosPerTick);
+        }
+        int ran = 0;
+        while (ran < ticks && game.isRunning()) {
+            game.runHeadless(1);
+            updates.add(new SessionUpdate(game));
+            ran++;
+        }
+        if (!game.isRunning()) {
+            finished = true;
+        }
+        if (nanosPerTick == 0) {
+            due = now;
+        }
+        return ran;
+    }
+
+    /**
+     * Returns the time the next tick of the session is due.
+     * @return the System.nanoTime() of the next due tick
+     */
+    long getDue() {
+        return due;
+    }
+
+    /**
+     * Returns the number of the session in its host.
+     * @return the session id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns whether the game of the session has ended.
+     * @return true if the game has ended
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns whether the client left the session before its game ended.
+     * @return true if the session was abandoned
+     */
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    /**
+     * Returns the client side of the session.
+     * @return the loopback client of the session
+     */
+    public LoopbackClient getClient() {
+        return client;
+    }
+
+    SessionInput getInput() {
+        return input;
+    }
+
+    BlockingQueue<SessionUpdate> getUpdates() {
+        return updates;
+    }
+
+    void abandon() {
+        abandoned = true;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof HostedSession) {
+            return Long.compare(due, ((HostedSession) other).due);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,109 @@
+package GameSettings;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The KeyTransitionQueue class is a bounded, lock-free queue of timestamped key presses and releases, for exactly
+ * one producer thread and one consumer thread.
+ * <p>
+ * Transitions are kept in a ring of primitive arrays, so offering and taking them never allocates. Each side only
+ * writes its own position, with an ordered store, and reads the other side's position only when its cached copy
+ * says the ring looks full or empty.
+ */
+public class KeyTransitionQueue {
+    private final long[] times;
+    private final byte[] transitions;
+    private final int mask;
+    private final AtomicLong head;    // the next position to take, written by the consumer
+    private final AtomicLong tail;    // the next position to fill, written by the producer
+    private long cachedHead;          // the producer's copy of head
+    private long cachedTail;          // the consumer's copy of tail
+
+    /**
+     * Constructs an empty queue.
+     * @param capacity the maximum number of transitions waiting at once, rounded up to a power of two
+     */
+    public KeyTransitionQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.times = new long[size];
+        this.transitions = new byte[size];
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Adds a transition to the queue. Must only be called from the producer thread.
+     * @param nanos when the transition happened, as given by System.nanoTime()
+     * @param key the index of the key, between 0 and 127
+     * @param pressed true if the key was pressed, false if it was released
+     * @return true if the transition was added, false if the queue is full
+     */
+    public boolean offer(long nanos, int key, boolean pressed) {
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                return false;
+            }
+        }
+        int slot = (int) t & mask;
+        times[slot] = nanos;
+        transitions[slot] = (byte) (key << 1 | (pressed ? 1 : 0));
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Returns whether no transition is waiting. Must only be called from the consumer thread.
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.get();
+        }
+        return h == cachedTail;
+    }
+
+    /**
+     * Returns when the oldest waiting transition happened. Must only be called from the consumer thread, after
+     * {@link #isEmpty()} returned false.
+     * @return the time of the transition, as given by System.nanoTime()
+     */
+    public long peekNanos() {
+        return times[(int) head.get() & mask];
+    }
+
+    /**
+     * Returns the key of the oldest waiting transition. Must only be called from the consumer thread, after
+     * {@link #isEmpty()} returned false.
+     * @return the index of the key
+     */
+    public int peekKey() {
+        return transitions[(int) head.get() & mask] >> 1;
+    }
+
+    /**
+     * Returns whether the oldest waiting transition is a press. Must only be called from the consumer thread, after
+     * {@link #isEmpty()} returned false.
+     * @return true if the key was pressed, false if it was released
+     */
+    public boolean peekPressed() {
+        return (transitions[(int) head.get() & mask] & 1) != 0;
+    }
+
+    /**
+     * Drops the oldest waiting transition. Must only be called from the consumer thread, after {@link #isEmpty()}
+     * returned false.
+     */
+    public void remove() {
+        head.lazySet(head.get() + 1);
+    }
+}
@@ -0,0 +1,106 @@
+package GameSettings;
+
+import java.util.Arrays;
+
+/**
+ * The LatencyHistogram class counts durations in nanoseconds in buckets of fixed relative width, so recording a
+ * duration is a few arithmetic operations and an array increment.
+ * <p>
+ * Durations under 64 ns are counted exactly. Longer ones fall into one of 32 buckets per power of two, so a
+ * percentile is reported within about 3% of the true duration. The maximum is kept exactly.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+
+    private final long[] counts;
+    private long count;
+    private long max;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[LINEAR_LIMIT + (Long.SIZE - LINEAR_BITS) * SUB_BUCKETS];
+    }
+
+    /**
+     * Counts one duration. Negative durations count as zero.
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketOf(nanos)]++;
+        count++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Returns the number of durations counted.
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the longest duration counted.
+     * @return the maximum in nanoseconds, or 0 if nothing was counted
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the duration that the given fraction of the counted durations do not exceed.
+     * @param fraction the fraction, between 0 and 1, such as 0.99 for the 99th percentile
+     * @return the upper bound of the bucket holding the percentile, in nanoseconds, or 0 if nothing was counted
+     */
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forgets every counted duration.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos < LINEAR_LIMIT) {
+            return (int) nanos;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
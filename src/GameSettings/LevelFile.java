@@ -0,0 +1,277 @@
+package GameSettings;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The LevelFile class reads a level in the compact binary level format, straight from a buffer, without building
+ * an object per block. A level file on disk is memory-mapped, so opening it costs the same for ten blocks as for a
+ * million, and the blocks are read as the game adds them.
+ * <p>
+ * The format, written by {@link LevelWriter}, is big-endian:
+ * <pre>
+ * header: int MAGIC, int number of balls, int number of blocks
+ * paddle: float x, float y, float width, float height, int color
+ * ball:   float x, float y, int radius, float angle, float speed, int color
+ * block:  float x, float y, float width, float height, int color, byte flags
+ * </pre>
+ * Colors are packed RGB values. The flags of a block tell which of the game's listeners it gets.
+ */
+public class LevelFile {
+    /**
+     * The first four bytes of every level file, "LVL1".
+     */
+    public static final int MAGIC = 0x4C564C31;
+    /**
+     * Flag of a block that is removed when hit and must be cleared to finish the level.
+     */
+    public static final int REMOVABLE = 1;
+    /**
+     * Flag of a block that adds to the score when hit.
+     */
+    public static final int SCORES = 2;
+    /**
+     * Flag of a block that removes the balls that hit it.
+     */
+    public static final int DEATH = 4;
+
+    static final int HEADER_BYTES = 12;
+    static final int PADDLE_BYTES = 20;
+    static final int BALL_BYTES = 24;
+    static final int BLOCK_BYTES = 21;
+
+    private final ByteBuffer buffer;
+    private final int ballCount;
+    private final int blockCount;
+    private final int ballsOffset;
+    private final int blocksOffset;
+    private final int length;        // the number of bytes from the header to the end of the last block
+
+    /**
+     * Constructs a level that reads from the given buffer, starting at its current position.
+     * @param buffer the buffer holding the level
+     * @throws IllegalArgumentException if the buffer does not hold a whole level
+     */
+    public LevelFile(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+        if (this.buffer.remaining() < HEADER_BYTES + PADDLE_BYTES || this.buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a level file");
+        }
+        this.ballCount = this.buffer.getInt(4);
+        this.blockCount = this.buffer.getInt(8);
+        if (ballCount < 0 || blockCount < 0) {
+            throw new IllegalArgumentException("corrupt level file: " + ballCount + " balls, " + blockCount
+                    + " blocks");
+        }
+        // in long, so huge counts can not wrap around to offsets that pass the check
+        long blocksStart = HEADER_BYTES + PADDLE_BYTES + (long) ballCount * BALL_BYTES;
+        long end = blocksStart + (long) blockCount * BLOCK_BYTES;
+        if (this.buffer.remaining() < end) {
+            throw new IllegalArgumentException("truncated level file");
+        }
+        this.ballsOffset = HEADER_BYTES + PADDLE_BYTES;
+        this.blocksOffset = (int) blocksStart;
+        this.length = (int) end;
+    }
+
+    /**
+     * Maps a binary level file into memory.
+     * @param path the path of the level file
+     * @return the level
+     * @throws IOException if the file can not be read or is not a level file
+     */
+    public static LevelFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new LevelFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a checksum of the level: the CRC-32 of its bytes, from the header to the last block.
+     * @return the checksum
+     */
+    public int checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().clear().limit(length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the number of balls the level starts with.
+     * @return the number of balls
+     */
+    public int getBallCount() {
+        return ballCount;
+    }
+
+    /**
+     * Returns the number of blocks in the level, borders included.
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Returns the x coordinate of the upper-left corner of the paddle.
+     * @return the x coordinate
+     */
+    public double getPaddleX() {
+        return buffer.getFloat(HEADER_BYTES);
+    }
+
+    /**
+     * Returns the y coordinate of the upper-left corner of the paddle.
+     * @return the y coordinate
+     */
+    public double getPaddleY() {
+        return buffer.getFloat(HEADER_BYTES + 4);
+    }
+
+    /**
+     * Returns the width of the paddle.
+     * @return the width
+     */
+    public double getPaddleWidth() {
+        return buffer.getFloat(HEADER_BYTES + 8);
+    }
+
+    /**
+     * Returns the height of the paddle.
+     * @return the height
+     */
+    public double getPaddleHeight() {
+        return buffer.getFloat(HEADER_BYTES + 12);
+    }
+
+    /**
+     * Returns the packed RGB color of the paddle.
+     * @return the color
+     */
+    public int getPaddleColor() {
+        return buffer.getInt(HEADER_BYTES + 16);
+    }
+
+    /**
+     * Returns the x coordinate of the center of a ball.
+     * @param i the index of the ball
+     * @return the x coordinate
+     */
+    public double getBallX(int i) {
+        return buffer.getFloat(ball(i));
+    }
+
+    /**
+     * Returns the y coordinate of the center of a ball.
+     * @param i the index of the ball
+     * @return the y coordinate
+     */
+    public double getBallY(int i) {
+        return buffer.getFloat(ball(i) + 4);
+    }
+
+    /**
+     * Returns the radius of a ball.
+     * @param i the index of the ball
+     * @return the radius
+     */
+    public int getBallRadius(int i) {
+        return buffer.getInt(ball(i) + 8);
+    }
+
+    /**
+     * Returns the angle, in degrees, a ball starts moving in.
+     * @param i the index of the ball
+     * @return the angle
+     */
+    public double getBallAngle(int i) {
+        return buffer.getFloat(ball(i) + 12);
+    }
+
+    /**
+     * Returns the speed a ball starts moving at.
+     * @param i the index of the ball
+     * @return the speed
+     */
+    public double getBallSpeed(int i) {
+        return buffer.getFloat(ball(i) + 16);
+    }
+
+    /**
+     * Returns the packed RGB color of a ball.
+     * @param i the index of the ball
+     * @return the color
+     */
+    public int getBallColor(int i) {
+        return buffer.getInt(ball(i) + 20);
+    }
+
+    /**
+     * Returns the x coordinate of the upper-left corner of a block.
+     * @param i the index of the block
+     * @return the x coordinate
+     */
+    public double getBlockX(int i) {
+        return buffer.getFloat(block(i));
+    }
+
+    /**
+     * Returns the y coordinate of the upper-left corner of a block.
+     * @param i the index of the block
+     * @return the y coordinate
+     */
+    public double getBlockY(int i) {
+        return buffer.getFloat(block(i) + 4);
+    }
+
+    /**
+     * Returns the width of a block.
+     * @param i the index of the block
+     * @return the width
+     */
+    public double getBlockWidth(int i) {
+        return buffer.getFloat(block(i) + 8);
+    }
+
+    /**
+     * Returns the height of a block.
+     * @param i the index of the block
+     * @return the height
+     */
+    public double getBlockHeight(int i) {
+        return buffer.getFloat(block(i) + 12);
+    }
+
+    /**
+     * Returns the packed RGB color of a block.
+     * @param i the index of the block
+     * @return the color
+     */
+    public int getBlockColor(int i) {
+        return buffer.getInt(block(i) + 16);
+    }
+
+    /**
+     * Returns the flags of a block, a combination of REMOVABLE, SCORES and DEATH.
+     * @param i the index of the block
+     * @return the flags
+     */
+    public int getBlockFlags(int i) {
+        return buffer.get(block(i) + 20) & 0xFF;
+    }
+
+    private int ball(int i) {
+        return ballsOffset + i * BALL_BYTES;
+    }
+
+    private int block(int i) {
+        return blocksOffset + i * BLOCK_BYTES;
+    }
+}
@@ -0,0 +1,139 @@
+package GameSettings;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The LevelText class parses the text form of a level into a {@link LevelWriter}, to be saved in the binary format.
+ * <p>
+ * Every line holds one command, and everything after a '#' is ignored:
+ * <pre>
+ * paddle x y width height color
+ * ball   x y radius angle speed color
+ * block  x y width height color [flags]
+ * row    x y count width height color [flags]
+ * </pre>
+ * A row is count blocks placed side by side to the right of (x, y). A color is the name of a java.awt.Color
+ * constant, such as "red", or a hex value such as "0xFF8000". Flags are any of the letters 'r' (removable),
+ * 's' (scores) and 'd' (death), or '-' for none, which is the default.
+ */
+public class LevelText {
+
+    private LevelText() {
+    }
+
+    /**
+     * Parses a level in text form.
+     * @param reader the reader to read the level from
+     * @return a writer holding the parsed level
+     * @throws IOException if the level can not be read or a line is malformed
+     */
+    public static LevelWriter parse(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        LevelWriter level = new LevelWriter();
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty()) {
+                continue;
+            }
+            try {
+                parseLine(words, level);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("level line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return level;
+    }
+
+    private static void parseLine(String[] words, LevelWriter level) {
+        switch (words[0]) {
+            case "paddle":
+                expect(words, 6, 6);
+                level.paddle(number(words[1]), number(words[2]), number(words[3]), number(words[4]),
+                        color(words[5]));
+                break;
+            case "ball":
+                expect(words, 7, 7);
+                level.ball(number(words[1]), number(words[2]), Integer.parseInt(words[3]), number(words[4]),
+                        number(words[5]), color(words[6]));
+                break;
+            case "block":
+                expect(words, 6, 7);
+                level.block(number(words[1]), number(words[2]), number(words[3]), number(words[4]),
+                        color(words[5]), words.length > 6 ? flags(words[6]) : 0);
+                break;
+            case "row":
+                expect(words, 7, 8);
+                double x = number(words[1]);
+                double y = number(words[2]);
+                int count = Integer.parseInt(words[3]);
+                double width = number(words[4]);
+                double height = number(words[5]);
+                int rgb = color(words[6]);
+                int flags = words.length > 7 ? flags(words[7]) : 0;
+                for (int i = 0; i < count; i++) {
+                    level.block(x + i * width, y, width, height, rgb, flags);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown command '" + words[0] + "'");
+        }
+    }
+
+    private static void expect(String[] words, int min, int max) {
+        if (words.length < min || words.length > max) {
+            throw new IllegalArgumentException("'" + words[0] + "' takes " + (min - 1)
+                    + (max > min ? " or " + (max - 1) : "") + " values");
+        }
+    }
+
+    private static double number(String word) {
+        return Double.parseDouble(word);
+    }
+
+    private static int color(String word) {
+        if (word.startsWith("0x")) {
+            return Color.decode(word).getRGB() & 0xFFFFFF;
+        }
+        try {
+            Object color = Color.class.getField(word.toUpperCase()).get(null);
+            if (color instanceof Color) {
+                return ((Color) color).getRGB() & 0xFFFFFF;
+            }
+        } catch (ReflectiveOperationException e) {
+            // fall through to the error below
+        }
+        throw new IllegalArgumentException("unknown color '" + word + "'");
+    }
+
+    private static int flags(String word) {
+        int flags = 0;
+        for (int i = 0; i < word.length(); i++) {
+            switch (word.charAt(i)) {
+                case 'r':
+                    flags |= LevelFile.REMOVABLE;
+                    break;
+                case 's':
+                    flags |= LevelFile.SCORES;
+                    break;
+                case 'd':
+                    flags |= LevelFile.DEATH;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown flag '" + word.charAt(i) + "'");
+            }
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,139 @@
+package GameSettings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LevelWriter class builds a level in the binary format read by {@link LevelFile}.
+ * <p>
+ * Blocks are packed as they are added, so even a level of a million blocks takes about 21 bytes per block while
+ * it is built.
+ */
+public class LevelWriter {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ByteBuffer paddle;
+    private ByteBuffer balls;
+    private ByteBuffer blocks;
+    private int ballCount;
+    private int blockCount;
+
+    /**
+     * Constructs an empty level, with a paddle of zero size at the origin.
+     */
+    public LevelWriter() {
+        this.paddle = ByteBuffer.allocate(LevelFile.PADDLE_BYTES);
+        this.balls = ByteBuffer.allocate(LevelFile.BALL_BYTES * 4);
+        this.blocks = ByteBuffer.allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Sets the paddle of the level.
+     * @param x the x coordinate of the upper-left corner of the paddle
+     * @param y the y coordinate of the upper-left corner of the paddle
+     * @param width the width of the paddle
+     * @param height the height of the paddle
+     * @param rgb the packed RGB color of the paddle
+     * @return this writer
+     */
+    public LevelWriter paddle(double x, double y, double width, double height, int rgb) {
+        paddle.clear();
+        paddle.putFloat((float) x).putFloat((float) y).putFloat((float) width).putFloat((float) height).putInt(rgb);
+        return this;
+    }
+
+    /**
+     * Adds a ball to the level.
+     * @param x the x coordinate of the center of the ball
+     * @param y the y coordinate of the center of the ball
+     * @param radius the radius of the ball
+     * @param angle the angle, in degrees, the ball starts moving in
+     * @param speed the speed the ball starts moving at
+     * @param rgb the packed RGB color of the ball
+     * @return this writer
+     */
+    public LevelWriter ball(double x, double y, int radius, double angle, double speed, int rgb) {
+        balls = ensureRemaining(balls, LevelFile.BALL_BYTES);
+        balls.putFloat((float) x).putFloat((float) y).putInt(radius)
+                .putFloat((float) angle).putFloat((float) speed).putInt(rgb);
+        ballCount++;
+        return this;
+    }
+
+    /**
+     * Adds a block to the level.
+     * @param x the x coordinate of the upper-left corner of the block
+     * @param y the y coordinate of the upper-left corner of the block
+     * @param width the width of the block
+     * @param height the height of the block
+     * @param rgb the packed RGB color of the block
+     * @param flags a combination of LevelFile.REMOVABLE, LevelFile.SCORES and LevelFile.DEATH
+     * @return this writer
+     */
+    public LevelWriter block(double x, double y, double width, double height, int rgb, int flags) {
+        blocks = ensureRemaining(blocks, LevelFile.BLOCK_BYTES);
+        blocks.putFloat((float) x).putFloat((float) y).putFloat((float) width).putFloat((float) height)
+                .putInt(rgb).put((byte) flags);
+        blockCount++;
+        return this;
+    }
+
+    /**
+     * Returns the number of blocks added so far.
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Returns the level as a buffer in the binary format, ready to be read by a LevelFile.
+     * @return a new buffer holding the level
+     */
+    public ByteBuffer toByteBuffer() {
+        ByteBuffer level = ByteBuffer.allocate(LevelFile.HEADER_BYTES + LevelFile.PADDLE_BYTES
+                + balls.position() + blocks.position());
+        level.putInt(LevelFile.MAGIC).putInt(ballCount).putInt(blockCount);
+        level.put(paddle.duplicate().clear());
+        level.put(balls.duplicate().flip());
+        level.put(blocks.duplicate().flip());
+        return level.flip();
+    }
+
+    /**
+     * Writes the level to a stream.
+     * @param out the stream to write to
+     * @throws IOException if the level can not be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        ByteBuffer level = toByteBuffer();
+        out.write(level.array(), level.arrayOffset(), level.remaining());
+    }
+
+    /**
+     * Writes the level to a file, replacing it if it exists.
+     * @param path the path of the file to write
+     * @throws IOException if the level can not be written
+     */
+    public void writeTo(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer level = toByteBuffer();
+            while (level.hasRemaining()) {
+                channel.write(level);
+            }
+        }
+    }
+
+    private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        return bigger.put(buffer.flip());
+    }
+}
@@ -0,0 +1,87 @@
+package GameSettings;
+
+import GameObjects.RayCast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The LinearScan class is the simplest CollisionIndex: it keeps its entries in a list and tests every one of them
+ * on every query.
+ * <p>
+ * It is the reference the other indexes must agree with exactly, and it is fast enough for levels of a few dozen
+ * collidables. Removing an entry takes time proportional to the number of entries.
+ */
+public class LinearScan extends CollisionIndex {
+    private final List<GameEnvironment.Entry> entries;
+
+    /**
+     * Constructs an empty index.
+     */
+    public LinearScan() {
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * Adds an entry to the list.
+     * @param entry the entry to add
+     */
+    @Override
+    void insert(GameEnvironment.Entry entry) {
+        entries.add(entry);
+    }
+
+    /**
+     * Removes an entry from the list.
+     * @param entry the entry to remove
+     */
+    @Override
+    void remove(GameEnvironment.Entry entry) {
+        entries.remove(entry);
+    }
+
+    /**
+     * Returns the entry a circle moving along the segment touches first, among every entry and the given best entry
+     * so far.
+     * When two entries are touched at the same time, the one that was added to the environment first wins.
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @param radius the radius of the moving circle, 0 for a point
+     * @param best the best entry found so far, or null
+     * @param bestTime the time at which the circle touches the best entry, ignored if there is none
+     * @return the entry touched first, or null if there is none
+     */
+    @Override
+    GameEnvironment.Entry closest(double x1, double y1, double x2, double y2, double radius,
+                                  GameEnvironment.Entry best, double bestTime) {
+        for (int i = 0; i < entries.size(); i++) {
+            GameEnvironment.Entry entry = entries.get(i);
+            double t = RayCast.sweptEntryTime(x1, y1, x2, y2, radius, entry.left, entry.top, entry.right, entry.bottom);
+            if (t != RayCast.MISS && isBetter(t, entry, bestTime, best)) {
+                bestTime = t;
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds every entry whose rectangle overlaps a box to a list.
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param into the list to add the entries to
+     */
+    @Override
+    void collect(double minX, double minY, double maxX, double maxY, List<GameEnvironment.Entry> into) {
+        for (int i = 0; i < entries.size(); i++) {
+            GameEnvironment.Entry entry = entries.get(i);
+            if (overlaps(entry, minX, minY, maxX, maxY)) {
+                into.add(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package GameSettings;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LoopbackClient class is the client side of a hosted session, in the same process as the host.
+ * <p>
+ * It stands in for a network connection: a bot or a test sends paddle input and reads the state of the game
+ * through it, from any one thread, while the game runs on the threads of the host. Both directions are bounded:
+ * input sent too far ahead of the game is refused, and a client that stops reading updates stops its game.
+ */
+public class LoopbackClient {
+    private final HostedSession session;
+
+    /**
+     * Constructs the client of the given session.
+     * @param session the session the client talks to
+     */
+    LoopbackClient(HostedSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Sends the keys to hold in the next tick that has no input yet.
+     * @param left whether to hold the left key
+     * @param right whether to hold the right key
+     * @return false if the input was refused because too many ticks of input are already queued
+     */
+    public boolean send(boolean left, boolean right) {
+        int keys = (left ? SessionLog.LEFT : 0) | (right ? SessionLog.RIGHT : 0);
+        return session.getInput().offer(keys);
+    }
+
+    /**
+     * Returns the oldest unread update, without waiting.
+     * @return the update, or null if there is none
+     */
+    public SessionUpdate poll() {
+        return session.getUpdates().poll();
+    }
+
+    /**
+     * Returns the oldest unread update, waiting for one for at most the given time.
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the update, or null if none came in time
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public SessionUpdate poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return session.getUpdates().poll(timeout, unit);
+    }
+
+    /**
+     * Moves all the unread updates to the given collection, oldest first.
+     * @param into the collection to add the updates to
+     * @return the number of updates moved
+     */
+    public int drainTo(Collection<? super SessionUpdate> into) {
+        return session.getUpdates().drainTo(into);
+    }
+
+    /**
+     * Returns whether the game has ended and every update was read.
+     * @return true if there is nothing left to read
+     */
+    public boolean isDone() {
+        return session.isFinished() && session.getUpdates().isEmpty();
+    }
+
+    /**
+     * Leaves the session. The host stops running the game the next time its turn comes.
+     */
+    public void close() {
+        session.abandon();
+    }
+
+    /**
+     * Returns the number of the session of the client in its host.
+     * @return the session id
+     */
+    public int getSessionId() {
+        return session.getId();
+    }
+}
@@ -0,0 +1,56 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The RecordingKeyboard class wraps a live keyboard sensor and writes the paddle keys of every tick to a session
+ * recorder.
+ * <p>
+ * The keys are sampled once per tick, in {@link #nextTick()}, so the game sees exactly the input that is recorded
+ * even if a key changes in the middle of a step.
+ */
+public class RecordingKeyboard implements TickInput {
+    private final KeyboardSensor keyboard;
+    private final SessionRecorder recorder;
+    private boolean left;
+    private boolean right;
+
+    /**
+     * Constructs a recording keyboard.
+     * @param keyboard the keyboard sensor to sample
+     * @param recorder the recorder to write the sampled keys to
+     */
+    public RecordingKeyboard(KeyboardSensor keyboard, SessionRecorder recorder) {
+        this.keyboard = keyboard;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Samples the keys for the next tick and records them.
+     */
+    @Override
+    public void nextTick() {
+        if (keyboard instanceof TickInput) {
+            ((TickInput) keyboard).nextTick();
+        }
+        left = keyboard.isPressed(KeyboardSensor.LEFT_KEY);
+        right = keyboard.isPressed(KeyboardSensor.RIGHT_KEY);
+        recorder.recordTick(left, right);
+    }
+
+    /**
+     * Returns whether the given key was held when the current tick was sampled.
+     * @param key the key to check
+     * @return true if the key is held
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return left;
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return right;
+        }
+        return false;
+    }
+}
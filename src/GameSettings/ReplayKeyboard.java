@@ -0,0 +1,57 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The ReplayKeyboard class is a keyboard sensor that plays back the input runs of a session log, one tick at a time.
+ * Once the log runs out, no key is held.
+ */
+public class ReplayKeyboard implements TickInput {
+    private final SessionLog log;
+    private int run;
+    private long ticksLeftInRun;
+    private int keys;
+
+    /**
+     * Constructs a keyboard that replays the given session log from its first tick.
+     * @param log the session log to replay
+     */
+    public ReplayKeyboard(SessionLog log) {
+        this.log = log;
+        this.run = -1;
+    }
+
+    /**
+     * Moves to the keys of the next recorded tick.
+     */
+    @Override
+    public void nextTick() {
+        while (ticksLeftInRun == 0) {
+            run++;
+            if (run >= log.getRunCount()) {
+                run = log.getRunCount();
+                keys = 0;
+                return;
+            }
+            keys = log.getRunKeys(run);
+            ticksLeftInRun = log.getRunLength(run);
+        }
+        ticksLeftInRun--;
+    }
+
+    /**
+     * Returns whether the given key is held in the current tick of the log.
+     * @param key the key to check
+     * @return true if the key is held
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return (keys & SessionLog.LEFT) != 0;
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return (keys & SessionLog.RIGHT) != 0;
+        }
+        return false;
+    }
+}
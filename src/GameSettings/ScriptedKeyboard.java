@@ -0,0 +1,61 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The ScriptedKeyboard class is a keyboard sensor that replays a fixed script of paddle input instead of reading a
+ * real keyboard. It lets a headless game run without a display.
+ * <p>
+ * The script is a string with one character per tick: 'L' holds the left key, 'R' holds the right key and any
+ * other character holds nothing. The script repeats once it ends.
+ */
+public class ScriptedKeyboard implements TickInput {
+    private final String script;
+    private int position;
+    private char current;
+
+    /**
+     * Constructs a scripted keyboard that never presses anything.
+     */
+    public ScriptedKeyboard() {
+        this(".");
+    }
+
+    /**
+     * Constructs a scripted keyboard that plays the given script.
+     * @param script the per-tick script, must not be empty
+     */
+    public ScriptedKeyboard(String script) {
+        if (script == null || script.isEmpty()) {
+            throw new IllegalArgumentException("script must not be empty");
+        }
+        this.script = script;
+        this.position = -1;
+        this.current = '.';
+    }
+
+    /**
+     * Advances the script to the next tick.
+     */
+    @Override
+    public void nextTick() {
+        position = (position + 1) % script.length();
+        current = script.charAt(position);
+    }
+
+    /**
+     * Returns whether the given key is held in the current tick of the script.
+     * @param key the key to check
+     * @return true if the key is held
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return current == 'L';
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return current == 'R';
+        }
+        return false;
+    }
+}
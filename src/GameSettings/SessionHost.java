@@ -0,0 +1,259 @@
+package GameSettings;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SessionHost class runs many independent headless games in one process, for bots and training.
+ * <p>
+ * Every game is a {@link HostedSession} with its own seed, level, tick rate and {@link LoopbackClient}.
+ * The sessions wait in one queue ordered by the time their next tick is due, and a small, fixed set of worker
+ * threads takes the session that is due first, runs its due ticks and puts it back. So thousands of sessions
+ * share a handful of threads, and no thread ever sleeps while a session is due.
+ * <p>
+ * The host counts the ticks it ran, the turns a session skipped because its client did not read its updates,
+ * and how late sessions got their turn, so the throughput of all the sessions together can be watched.
+ */
+public class SessionHost implements AutoCloseable {
+    private final DelayQueue<HostedSession> queue;
+    private final Thread[] workers;
+    private final long startTime;
+    private final AtomicInteger nextId;
+    private final AtomicInteger active;
+    private final LongAdder ticks;
+    private final LongAdder stalls;
+    private final LongAdder turns;
+    private final LongAdder delayNanos;
+    private final LongAccumulator maxDelayNanos;
+    private final LongAdder finished;
+    private final LongAdder abandoned;
+    private final Object idle;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a host with one worker thread per available processor.
+     */
+    public SessionHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a host that runs its sessions on the given number of worker threads.
+     * @param workerCount the number of worker threads
+     */
+    public SessionHost(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("worker count must be positive: " + workerCount);
+        }
+        this.queue = new DelayQueue<>();
+        this.nextId = new AtomicInteger();
+        this.active = new AtomicInteger();
+        this.ticks = new LongAdder();
+        this.stalls = new LongAdder();
+        this.turns = new LongAdder();
+        this.delayNanos = new LongAdder();
+        this.maxDelayNanos = new LongAccumulator(Math::max, 0);
+        this.finished = new LongAdder();
+        this.abandoned = new LongAdder();
+        this.idle = new Object();
+        this.startTime = System.nanoTime();
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, "session-host-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Starts a session that plays the default level as fast as the host can.
+     * @param seed the seed of the random generator of the game
+     * @return the client of the new session
+     */
+    public LoopbackClient open(long seed) {
+        return open(seed, null, 0);
+    }
+
+    /**
+     * Starts a session.
+     * @param seed the seed of the random generator of the game
+     * @param level the level to play, or null for the default level
+     * @param ticksPerSecond the tick rate of the game, or 0 to run it as fast as the host can
+     * @return the client of the new session
+     */
+    public LoopbackClient open(long seed, LevelFile level, int ticksPerSecond) {
+        if (closed) {
+            throw new IllegalStateException("host is closed");
+        }
+        if (ticksPerSecond < 0) {
+            throw new IllegalArgumentException("tick rate must not be negative: " + ticksPerSecond);
+        }
+        SessionInput input = new SessionInput(HostedSession.INPUT_CAPACITY);
+        Game game = new Game(input, seed);
+        if (level != null) {
+            game.initialize(level);
+        } else {
+            game.initialize();
+        }
+        HostedSession session = new HostedSession(nextId.getAndIncrement(), game, input, ticksPerSecond,
+                System.nanoTime());
+        active.incrementAndGet();
+        queue.put(session);
+        return session.getClient();
+    }
+
+    /**
+     * Waits until every session opened so far has ended or was abandoned.
+     * @param timeout how long to wait at most
+     * @param unit the unit of the timeout
+     * @return true if no session is left, false if the time ran out first
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (idle) {
+            while (active.get() > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(idle, left);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the worker threads and waits for them to finish their current turn. Sessions that did not end are
+     * dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work() {
+        try {
+            while (!closed) {
+                HostedSession session = queue.take();
+                if (session.isAbandoned()) {
+                    abandoned.increment();
+                    retire();
+                    continue;
+                }
+                long now = System.nanoTime();
+                long delay = Math.max(0, now - session.getDue());
+                turns.increment();
+                delayNanos.add(delay);
+                maxDelayNanos.accumulate(delay);
+                int ran = session.runDue(now);
+                if (ran == 0) {
+                    stalls.increment();
+                } else {
+                    ticks.add(ran);
+                }
+                if (session.isFinished()) {
+                    finished.increment();
+                    retire();
+                } else {
+                    queue.put(session);
+                }
+            }
+        } catch (InterruptedException e) {
+            // the host is closing
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void retire() {
+        if (active.decrementAndGet() == 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sessions that are still running.
+     * @return the number of active sessions
+     */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    /**
+     * Returns the number of sessions whose game ended.
+     * @return the number of finished sessions
+     */
+    public long getFinishedSessions() {
+        return finished.sum();
+    }
+
+    /**
+     * Returns the number of sessions that were dropped because their client left.
+     * @return the number of abandoned sessions
+     */
+    public long getAbandonedSessions() {
+        return abandoned.sum();
+    }
+
+    /**
+     * Returns the number of ticks run by all the sessions together.
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * Returns the number of ticks run per second by all the sessions together, since the host was created.
+     * @return the throughput, in ticks per second
+     */
+    public double getTicksPerSecond() {
+        return ticks.sum() / ((System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Returns the number of turns in which a session did not tick because its client had too many updates unread.
+     * @return the number of stalled turns
+     */
+    public long getStalledTurns() {
+        return stalls.sum();
+    }
+
+    /**
+     * Returns how long after its due time a session got its turn, on average.
+     * @return the mean scheduling delay, in microseconds
+     */
+    public double getMeanDelayMicros() {
+        long n = turns.sum();
+        return n == 0 ? 0 : delayNanos.sum() / 1000.0 / n;
+    }
+
+    /**
+     * Returns the longest time a session waited for its turn after it was due.
+     * @return the maximum scheduling delay, in microseconds
+     */
+    public double getMaxDelayMicros() {
+        return maxDelayNanos.get() / 1000.0;
+    }
+}
@@ -0,0 +1,62 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The SessionInput class is the paddle input of a hosted game, fed by a client on another thread.
+ * <p>
+ * The client queues the keys it holds, at most one entry per tick, and every tick takes the next entry. When the
+ * queue is empty, the keys of the last tick stay held, the way a real key stays down until it is released. The
+ * queue is bounded, so a client that runs ahead of the game is refused instead of piling up input.
+ */
+public class SessionInput implements TickInput {
+    private final BlockingQueue<Byte> pending;
+    private int current;
+
+    /**
+     * Constructs an input that queues up to the given number of ticks ahead.
+     * @param capacity the most ticks of input the client may queue
+     */
+    public SessionInput(int capacity) {
+        this.pending = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queues the keys to hold in a coming tick. May be called from any thread.
+     * @param keys the held keys, a combination of SessionLog.LEFT and SessionLog.RIGHT
+     * @return false if the queue is full and the keys were dropped
+     */
+    public boolean offer(int keys) {
+        return pending.offer((byte) keys);
+    }
+
+    /**
+     * Takes the keys of the next tick from the queue, or keeps the last ones if none were queued.
+     */
+    @Override
+    public void nextTick() {
+        Byte next = pending.poll();
+        if (next != null) {
+            current = next;
+        }
+    }
+
+    /**
+     * Returns whether the given key is held in the current tick.
+     * @param key the key to check
+     * @return true if the key is held
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return (current & SessionLog.LEFT) != 0;
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return (current & SessionLog.RIGHT) != 0;
+        }
+        return false;
+    }
+}
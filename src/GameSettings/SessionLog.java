@@ -0,0 +1,242 @@
+package GameSettings;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SessionLog class is a recorded game session: the random seed of the game, the level and the options that
+ * change how it plays, the paddle input of every tick and state hashes at regular checkpoints.
+ * <p>
+ * The binary format, written by {@link SessionRecorder}, is a header followed by tagged records:
+ * <pre>
+ * header:     int MAGIC, long seed, int checkpoint interval, int level checksum, int option flags
+ * input run:  byte TAG_INPUT, byte keys, varint number of ticks
+ * checkpoint: byte TAG_CHECKPOINT, varint tick, long state hash
+ * end:        byte TAG_END, varint tick, long state hash
+ * </pre>
+ * Input runs cover the ticks from the first one on, in order. The keys byte holds LEFT and RIGHT as bit flags.
+ * The level checksum is {@link LevelFile#checksum()} of the level the session was played on, and the option flags
+ * hold BALL_COLLISIONS and DEFERRED_HITS.
+ */
+public class SessionLog {
+    /**
+     * The first four bytes of every session log, "ARK2".
+     */
+    public static final int MAGIC = 0x41524B32;
+    /**
+     * Flag of the left key in a keys byte.
+     */
+    public static final int LEFT = 1;
+    /**
+     * Flag of the right key in a keys byte.
+     */
+    public static final int RIGHT = 2;
+    /**
+     * Option flag of a game whose balls bounce off each other.
+     */
+    public static final int BALL_COLLISIONS = 1;
+    /**
+     * Option flag of a game that defers its hits to the end of the tick.
+     */
+    public static final int DEFERRED_HITS = 2;
+    /**
+     * Every option flag this version knows.
+     */
+    public static final int KNOWN_OPTIONS = BALL_COLLISIONS | DEFERRED_HITS;
+
+    static final int TAG_END = 0;
+    static final int TAG_INPUT = 1;
+    static final int TAG_CHECKPOINT = 2;
+
+    private final long seed;
+    private final int checkpointInterval;
+    private final int levelChecksum;
+    private final int options;
+    private final List<Integer> runKeys;
+    private final List<Long> runLengths;
+    private final List<Long> checkpointTicks;
+    private final List<Long> checkpointHashes;
+    private long endTick;
+    private long endHash;
+    private boolean complete;
+
+    private SessionLog(long seed, int checkpointInterval, int levelChecksum, int options) {
+        this.seed = seed;
+        this.checkpointInterval = checkpointInterval;
+        this.levelChecksum = levelChecksum;
+        this.options = options;
+        this.runKeys = new ArrayList<>();
+        this.runLengths = new ArrayList<>();
+        this.checkpointTicks = new ArrayList<>();
+        this.checkpointHashes = new ArrayList<>();
+        this.endTick = -1;
+    }
+
+    /**
+     * Reads a session log. A log cut off before its end record is read up to the cut.
+     * @param in the stream to read from
+     * @return the session log
+     * @throws IOException if the stream can not be read or is not a session log
+     */
+    public static SessionLog read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a session log, or one of an older version");
+        }
+        SessionLog log = new SessionLog(data.readLong(), data.readInt(), data.readInt(), data.readInt());
+        try {
+            while (true) {
+                int tag = data.readUnsignedByte();
+                if (tag == TAG_INPUT) {
+                    log.runKeys.add(data.readUnsignedByte());
+                    log.runLengths.add(readVarLong(data));
+                } else if (tag == TAG_CHECKPOINT) {
+                    log.checkpointTicks.add(readVarLong(data));
+                    log.checkpointHashes.add(data.readLong());
+                } else if (tag == TAG_END) {
+                    log.endTick = readVarLong(data);
+                    log.endHash = data.readLong();
+                    log.complete = true;
+                    return log;
+                } else {
+                    throw new IOException("unknown record tag " + tag);
+                }
+            }
+        } catch (EOFException e) {
+            return log;
+        }
+    }
+
+    /**
+     * Returns the seed of the random generator of the recorded game.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of ticks between two checkpoints.
+     * @return the checkpoint interval
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Returns the checksum of the level the session was played on.
+     * @return the {@link LevelFile#checksum()} of the level
+     */
+    public int getLevelChecksum() {
+        return levelChecksum;
+    }
+
+    /**
+     * Returns the options the recorded game was played with.
+     * @return a combination of the BALL_COLLISIONS and DEFERRED_HITS flags
+     */
+    public int getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the number of input runs in the log.
+     * @return the number of runs
+     */
+    public int getRunCount() {
+        return runKeys.size();
+    }
+
+    /**
+     * Returns the keys held during an input run.
+     * @param run the index of the run
+     * @return a combination of the LEFT and RIGHT flags
+     */
+    public int getRunKeys(int run) {
+        return runKeys.get(run);
+    }
+
+    /**
+     * Returns the number of ticks an input run lasts.
+     * @param run the index of the run
+     * @return the number of ticks
+     */
+    public long getRunLength(int run) {
+        return runLengths.get(run);
+    }
+
+    /**
+     * Returns the number of checkpoints in the log.
+     * @return the number of checkpoints
+     */
+    public int getCheckpointCount() {
+        return checkpointTicks.size();
+    }
+
+    /**
+     * Returns the tick after which a checkpoint was taken.
+     * @param checkpoint the index of the checkpoint
+     * @return the tick
+     */
+    public long getCheckpointTick(int checkpoint) {
+        return checkpointTicks.get(checkpoint);
+    }
+
+    /**
+     * Returns the state hash recorded at a checkpoint.
+     * @param checkpoint the index of the checkpoint
+     * @return the state hash
+     */
+    public long getCheckpointHash(int checkpoint) {
+        return checkpointHashes.get(checkpoint);
+    }
+
+    /**
+     * Returns whether the log ends with an end record.
+     * @return true if the recorded game ended
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the tick the recorded game ended on.
+     * @return the last tick, or -1 if the log is not complete
+     */
+    public long getEndTick() {
+        return endTick;
+    }
+
+    /**
+     * Returns the state hash at the end of the recorded game.
+     * @return the state hash, meaningless if the log is not complete
+     */
+    public long getEndHash() {
+        return endHash;
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed variable-length number");
+    }
+}
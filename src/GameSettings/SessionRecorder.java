@@ -0,0 +1,123 @@
+package GameSettings;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The SessionRecorder class writes a game session in the {@link SessionLog} format as it is played.
+ * <p>
+ * Consecutive ticks with the same keys are written as one run, so a session costs a few bytes per key press rather
+ * than per tick. Write errors are rethrown as UncheckedIOException, since they happen inside the game loop.
+ */
+public class SessionRecorder implements Closeable {
+    private final DataOutputStream out;
+    private boolean started;
+    private int runKeys;
+    private long runLength;
+
+    /**
+     * Constructs a recorder that writes to the given stream.
+     * @param out the stream to write the session to
+     */
+    public SessionRecorder(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Writes the header of the session.
+     * @param seed the seed of the random generator of the game
+     * @param checkpointInterval the number of ticks between two checkpoints
+     * @param levelChecksum the {@link LevelFile#checksum()} of the level the game is played on
+     * @param options the options the game is played with, a combination of the {@link SessionLog} option flags
+     */
+    public void start(long seed, int checkpointInterval, int levelChecksum, int options) {
+        if (started) {
+            throw new IllegalStateException("the session was already started");
+        }
+        started = true;
+        try {
+            out.writeInt(SessionLog.MAGIC);
+            out.writeLong(seed);
+            out.writeInt(checkpointInterval);
+            out.writeInt(levelChecksum);
+            out.writeInt(options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records the keys held during the next tick.
+     * @param left whether the left key is held
+     * @param right whether the right key is held
+     */
+    public void recordTick(boolean left, boolean right) {
+        int keys = (left ? SessionLog.LEFT : 0) | (right ? SessionLog.RIGHT : 0);
+        if (runLength > 0 && keys != runKeys) {
+            flushRun();
+        }
+        runKeys = keys;
+        runLength++;
+    }
+
+    /**
+     * Records the state hash of the game after the given tick.
+     * @param tick the number of ticks played so far
+     * @param hash the state hash of the game
+     */
+    public void checkpoint(long tick, long hash) {
+        writeHash(SessionLog.TAG_CHECKPOINT, tick, hash);
+    }
+
+    /**
+     * Records the end of the session and closes the stream.
+     * @param tick the number of ticks played
+     * @param hash the final state hash of the game
+     */
+    public void end(long tick, long hash) {
+        flushRun();
+        writeHash(SessionLog.TAG_END, tick, hash);
+        close();
+    }
+
+    /**
+     * Writes any buffered input and closes the stream, without marking the session as ended.
+     */
+    @Override
+    public void close() {
+        flushRun();
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushRun() {
+        if (runLength == 0) {
+            return;
+        }
+        try {
+            out.writeByte(SessionLog.TAG_INPUT);
+            out.writeByte(runKeys);
+            SessionLog.writeVarLong(out, runLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runLength = 0;
+    }
+
+    private void writeHash(int tag, long tick, long hash) {
+        try {
+            out.writeByte(tag);
+            SessionLog.writeVarLong(out, tick);
+            out.writeLong(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package GameSettings;
+
+/**
+ * The SessionReplayer class replays a recorded session headless, at full speed, and checks that the simulation
+ * reaches the same state hash at every checkpoint of the log.
+ * <p>
+ * The game is played with the options recorded in the log, on a level that must have the recorded checksum, so a
+ * session is never replayed on the wrong level or with the wrong options only to diverge at its first checkpoint.
+ * <p>
+ * The replay stops at the first checkpoint whose hash differs, which narrows a divergence down to one checkpoint
+ * interval.
+ */
+public class SessionReplayer {
+    private final SessionLog log;
+    private final LevelFile level;
+    private Game game;
+    private long mismatchTick;
+
+    /**
+     * Constructs a replayer for a session log played on the default level.
+     * @param log the session log to replay
+     */
+    public SessionReplayer(SessionLog log) {
+        this(log, null);
+    }
+
+    /**
+     * Constructs a replayer for a session log played on the given level.
+     * @param log the session log to replay
+     * @param level the level the session was played on, or null for the default level
+     * @throws IllegalArgumentException if the level is not the one the session was played on, or the session was
+     *                                  played with options this version does not know
+     */
+    public SessionReplayer(SessionLog log, LevelFile level) {
+        if (level == null) {
+            level = new LevelFile(Game.defaultLevel().toByteBuffer());
+        }
+        if (level.checksum() != log.getLevelChecksum()) {
+            throw new IllegalArgumentException(String.format(
+                    "the session was played on another level: checksum %08x, not %08x",
+                    log.getLevelChecksum(), level.checksum()));
+        }
+        if ((log.getOptions() & ~SessionLog.KNOWN_OPTIONS) != 0) {
+            throw new IllegalArgumentException(String.format(
+                    "the session was played with unknown options %08x", log.getOptions()));
+        }
+        this.log = log;
+        this.level = level;
+        this.mismatchTick = -1;
+    }
+
+    /**
+     * Replays the session from the start.
+     * @return true if every checkpoint, and the end of the session if it was recorded, matched
+     */
+    public boolean replay() {
+        this.game = new Game(new ReplayKeyboard(log), log.getSeed());
+        this.game.setBallCollisions((log.getOptions() & SessionLog.BALL_COLLISIONS) != 0);
+        this.game.setDeferredHits((log.getOptions() & SessionLog.DEFERRED_HITS) != 0);
+        this.game.initialize(level);
+        this.mismatchTick = -1;
+        for (int i = 0; i < log.getCheckpointCount(); i++) {
+            if (!reach(log.getCheckpointTick(i), log.getCheckpointHash(i))) {
+                return false;
+            }
+        }
+        if (log.isComplete()) {
+            return reach(log.getEndTick(), log.getEndHash()) && !game.isRunning();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the replayed game, in the state the replay stopped in.
+     * @return the game, or null if the session was not replayed yet
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the tick of the first checkpoint that did not match.
+     * @return the tick, or -1 if every checkpoint matched
+     */
+    public long getMismatchTick() {
+        return mismatchTick;
+    }
+
+    private boolean reach(long tick, long hash) {
+        game.runHeadless(tick - game.getTick());
+        if (game.getTick() != tick || game.stateHash() != hash) {
+            mismatchTick = tick;
+            return false;
+        }
+        return true;
+    }
+}
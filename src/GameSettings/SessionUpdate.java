@@ -0,0 +1,64 @@
+package GameSettings;
+
+/**
+ * The SessionUpdate class is the state of a hosted game after a tick, as its client sees it.
+ */
+public class SessionUpdate {
+    private final long tick;
+    private final int score;
+    private final int remainingBlocks;
+    private final int remainingBalls;
+    private final boolean running;
+
+    /**
+     * Constructs an update with the state of the given game.
+     * @param game the game that just ticked
+     */
+    SessionUpdate(Game game) {
+        this.tick = game.getTick();
+        this.score = game.getScore();
+        this.remainingBlocks = game.getRemainingBlocks();
+        this.remainingBalls = game.getRemainingBalls();
+        this.running = game.isRunning();
+    }
+
+    /**
+     * Returns the number of ticks the game has run.
+     * @return the tick of the update
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the score after the tick.
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of blocks left after the tick.
+     * @return the number of remaining blocks
+     */
+    public int getRemainingBlocks() {
+        return remainingBlocks;
+    }
+
+    /**
+     * Returns the number of balls left after the tick.
+     * @return the number of remaining balls
+     */
+    public int getRemainingBalls() {
+        return remainingBalls;
+    }
+
+    /**
+     * Returns whether the game goes on after the tick. The update of the last tick is the only one that says no.
+     * @return true if the game has not ended
+     */
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,60 @@
+package GameSettings;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SnapshotExchange class hands world snapshots from the game thread to a render thread without locks.
+ * <p>
+ * It is a triple buffer: the game thread writes into a back snapshot, the render thread reads a front snapshot,
+ * and a third one sits in the middle. Publishing swaps the back and the middle snapshots, and taking the latest
+ * swaps the middle and the front ones, each with a single atomic exchange, so neither thread ever waits for the
+ * other. The render thread always gets the most recent complete snapshot; snapshots it was too slow to draw are
+ * simply overwritten.
+ * <p>
+ * Only one thread may publish and only one thread may take snapshots.
+ */
+public class SnapshotExchange {
+    private static final int FRESH = 4;   // set on the middle index when it holds a snapshot not taken yet
+    private static final int INDEX_MASK = 3;
+
+    private final WorldSnapshot[] snapshots;
+    private final AtomicInteger middle;
+    private int back;    // only touched by the game thread
+    private int front;   // only touched by the render thread
+
+    /**
+     * Constructs an exchange of three empty snapshots.
+     */
+    public SnapshotExchange() {
+        this.snapshots = new WorldSnapshot[] {new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot()};
+        this.back = 0;
+        this.middle = new AtomicInteger(1);
+        this.front = 2;
+    }
+
+    /**
+     * Returns the snapshot the game thread should capture the next tick into.
+     * @return the back snapshot
+     */
+    public WorldSnapshot back() {
+        return snapshots[back];
+    }
+
+    /**
+     * Publishes the back snapshot, making it the latest one, and takes a new back snapshot to write into.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the most recently published snapshot. The render thread may read it until the next call.
+     * @return the latest snapshot, or the one returned last time if nothing was published since
+     */
+    public WorldSnapshot latest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return snapshots[front];
+    }
+}
@@ -0,0 +1,540 @@
+package GameSettings;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * The SoftwareSurface class is a DrawSurface that draws in plain Java into an array of packed ARGB pixels, so
+ * anything that draws itself on a DrawSurface can be drawn without a window or a display.
+ * <p>
+ * Shapes cover the same pixels as they do on a window: filled shapes cover the pixels whose centers lie inside
+ * them, and outlines are one pixel wide and include their right and bottom edges. Colors that are not opaque are
+ * blended over what is already drawn. Text is drawn with a built-in 5x7 pixel font, scaled to the requested size,
+ * that has digits, capital letters and common punctuation; small letters are drawn as capitals.
+ */
+public class SoftwareSurface implements DrawSurface {
+    private static final int GLYPH_WIDTH = 5;
+    private static final int GLYPH_HEIGHT = 7;
+    private static final int GLYPH_ADVANCE = GLYPH_WIDTH + 1;
+    private static final int TEXT_SIZE_PER_SCALE = 10;   // a font size of 10 draws glyphs at 1 pixel per dot
+    private static final int OPAQUE = 0xFF000000;
+    private static final char FIRST_GLYPH = ' ';
+
+    // The glyphs from ' ' to 'Z', 35 bits each, row by row from the top, the leftmost dot in the highest bit.
+    // Characters without a glyph are blank.
+    private static final long[] GLYPHS = {
+            0x000000000L, 0x108421004L, 0x000000000L, 0x000000000L,   //   ! " #
+            0x000000000L, 0x632222263L, 0x000000000L, 0x108000000L,   // $ % & '
+            0x088842082L, 0x208210888L, 0x000000000L, 0x0084F9080L,   // ( ) * +
+            0x000003088L, 0x0000F8000L, 0x00000018CL, 0x002222200L,   // , - . /
+            0x3A33AE62EL, 0x11842108EL, 0x3A211111FL, 0x7C441062EL,   // 0 1 2 3
+            0x08CA97C42L, 0x7E1E0862EL, 0x1910F462EL, 0x7C2222108L,   // 4 5 6 7
+            0x3A317462EL, 0x3A317844CL, 0x018C03180L, 0x000000000L,   // 8 9 : ;
+            0x000000000L, 0x001F07C00L, 0x000000000L, 0x3A2111004L,   // < = > ?
+            0x000000000L, 0x3A31FC631L, 0x7A31F463EL, 0x3A308422EL,   // @ A B C
+            0x72518C65CL, 0x7E10F421FL, 0x7E10F4210L, 0x3A30BC62FL,   // D E F G
+            0x4631FC631L, 0x38842108EL, 0x1C4210A4CL, 0x4654C5251L,   // H I J K
+            0x42108421FL, 0x4775AC631L, 0x4639ACE31L, 0x3A318C62EL,   // L M N O
+            0x7A31F4210L, 0x3A318D64DL, 0x7A31F5251L, 0x3E107043EL,   // P Q R S
+            0x7C8421084L, 0x46318C62EL, 0x46318C544L, 0x4631AD6AAL,   // T U V W
+            0x462A22A31L, 0x462A21084L, 0x7C222221FL    // X Y Z
+    };
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private int color;
+    private int[] row;   // a row of an image being drawn, reused between images
+    private double[] crossings = new double[8];   // where the edges of a polygon cross a row, reused between rows
+
+    /**
+     * Constructs a surface of the given size, cleared to opaque black, drawing in black.
+     * @param width the width of the surface, in pixels
+     * @param height the height of the surface, in pixels
+     */
+    public SoftwareSurface(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.color = OPAQUE;
+        Arrays.fill(pixels, OPAQUE);
+    }
+
+    /**
+     * Sets the color the next shapes are drawn in.
+     * @param c the color
+     */
+    @Override
+    public void setColor(Color c) {
+        this.color = c.getRGB();
+    }
+
+    /**
+     * Fills a rectangle.
+     * @param x the x coordinate of the left edge
+     * @param y the y coordinate of the top edge
+     * @param w the width
+     * @param h the height
+     */
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + w, width);
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + h, height);
+        for (int py = y0; py < y1; py++) {
+            span(x0, x1, py);
+        }
+    }
+
+    /**
+     * Draws the outline of a rectangle, including its right and bottom edges.
+     * @param x the x coordinate of the left edge
+     * @param y the y coordinate of the top edge
+     * @param w the width
+     * @param h the height
+     */
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        if (w < 0 || h < 0) {
+            return;
+        }
+        fillRectangle(x, y, w + 1, 1);
+        if (h > 0) {
+            fillRectangle(x, y + h, w + 1, 1);
+        }
+        if (h > 1) {
+            fillRectangle(x, y + 1, 1, h - 1);
+            if (w > 0) {
+                fillRectangle(x + w, y + 1, 1, h - 1);
+            }
+        }
+    }
+
+    /**
+     * Fills a circle.
+     * @param x the x coordinate of the center
+     * @param y the y coordinate of the center
+     * @param r the radius
+     */
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        int y0 = Math.max(y - r, 0);
+        int y1 = Math.min(y + r, height);
+        for (int py = y0; py < y1; py++) {
+            double dy = py + 0.5 - y;
+            double half = Math.sqrt((double) r * r - dy * dy);
+            int x0 = (int) Math.ceil(x - half - 0.5);
+            int x1 = (int) Math.floor(x + half - 0.5) + 1;
+            span(Math.max(x0, 0), Math.min(x1, width), py);
+        }
+    }
+
+    /**
+     * Draws the outline of a circle, with the midpoint algorithm.
+     * @param x the x coordinate of the center
+     * @param y the y coordinate of the center
+     * @param r the radius
+     */
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        if (r < 0) {
+            return;
+        }
+        int px = r;
+        int py = 0;
+        int error = 1 - r;
+        while (px >= py) {
+            plot(x + px, y + py);
+            plot(x - px, y + py);
+            plot(x + px, y - py);
+            plot(x - px, y - py);
+            if (px != py) {
+                plot(x + py, y + px);
+                plot(x - py, y + px);
+                plot(x + py, y - px);
+                plot(x - py, y - px);
+            }
+            py++;
+            if (error < 0) {
+                error += 2 * py + 1;
+            } else {
+                px--;
+                error += 2 * (py - px) + 1;
+            }
+        }
+    }
+
+    /**
+     * Fills the ellipse that fits in a rectangle.
+     * @param x the x coordinate of the left edge of the rectangle
+     * @param y the y coordinate of the top edge of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     */
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        double centerX = x + w / 2.0;
+        double centerY = y + h / 2.0;
+        double a = w / 2.0;
+        double b = h / 2.0;
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + h, height);
+        for (int py = y0; py < y1; py++) {
+            double dy = (py + 0.5 - centerY) / b;
+            double half = a * Math.sqrt(Math.max(0, 1 - dy * dy));
+            int x0 = (int) Math.ceil(centerX - half - 0.5);
+            int x1 = (int) Math.floor(centerX + half - 0.5) + 1;
+            span(Math.max(x0, 0), Math.min(x1, width), py);
+        }
+    }
+
+    /**
+     * Draws the outline of the ellipse that fits in a rectangle, including its right and bottom edges, with the
+     * midpoint algorithm for ellipses of any width and height.
+     * @param x the x coordinate of the left edge of the rectangle
+     * @param y the y coordinate of the top edge of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     */
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        if (w < 0 || h < 0) {
+            return;
+        }
+        int left = x;
+        int right = x + w;
+        int below = y + (h + 1) / 2;   // the rows are walked from the middle outwards, one below and one above
+        int above = below - (h & 1);
+        long a = w;
+        long b = h;
+        long stepX = 4 * (1 - a) * b * b;
+        long stepY = 4 * ((h & 1) + 1) * a * a;
+        long error = stepX + stepY + (h & 1) * a * a;
+        long growX = 8 * b * b;
+        long growY = 8 * a * a;
+        boolean newRows = true;   // whether the rows were not plotted yet
+        do {
+            plotMirrored(left, right, above, below);
+            long twice = 2 * error;
+            newRows = false;
+            if (twice <= stepY) {
+                below++;
+                above--;
+                stepY += growY;
+                error += stepY;
+                newRows = true;
+            }
+            if (twice >= stepX || 2 * error > stepY) {
+                left++;
+                right--;
+                stepX += growX;
+                error += stepX;
+            }
+        } while (left <= right);
+        // an ellipse up to two pixels wide stops before its tips
+        while (below - above <= h) {
+            if (newRows) {
+                plotMirrored(left - 1, right + 1, above, below);
+            }
+            above--;
+            below++;
+            newRows = true;
+        }
+    }
+
+    /**
+     * Draws a line between two pixels, both included, with Bresenham's algorithm.
+     * @param x1 the x coordinate of the first end
+     * @param y1 the y coordinate of the first end
+     * @param x2 the x coordinate of the second end
+     * @param y2 the y coordinate of the second end
+     */
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        line(x1, y1, x2, y2, true);
+    }
+
+    /**
+     * Fills a polygon, with the even-odd rule: a pixel is covered if a ray from its center crosses the edges an odd
+     * number of times.
+     * @param p the polygon
+     */
+    @Override
+    public void fillPolygon(Polygon p) {
+        int n = p.npoints;
+        if (n < 3) {
+            return;
+        }
+        int[] xs = p.xpoints;
+        int[] ys = p.ypoints;
+        int top = Integer.MAX_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            top = Math.min(top, ys[i]);
+            bottom = Math.max(bottom, ys[i]);
+        }
+        if (crossings.length < n) {
+            crossings = new double[Math.max(n, 2 * crossings.length)];
+        }
+        int y0 = Math.max(top, 0);
+        int y1 = Math.min(bottom, height);
+        for (int py = y0; py < y1; py++) {
+            double center = py + 0.5;
+            int count = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                if ((ys[i] > center) != (ys[j] > center)) {
+                    crossings[count++] = xs[i] + (center - ys[i]) * (xs[j] - xs[i]) / (ys[j] - ys[i]);
+                }
+            }
+            Arrays.sort(crossings, 0, count);
+            for (int k = 0; k + 1 < count; k += 2) {
+                int x0 = (int) Math.ceil(crossings[k] - 0.5);
+                int x1 = (int) Math.ceil(crossings[k + 1] - 0.5);
+                span(Math.max(x0, 0), Math.min(x1, width), py);
+            }
+        }
+    }
+
+    /**
+     * Draws the outline of a polygon, closing it from the last point back to the first. Every point is drawn once.
+     * @param p the polygon
+     */
+    @Override
+    public void drawPolygon(Polygon p) {
+        int n = p.npoints;
+        boolean moved = false;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            // every edge leaves out its last pixel, which is the first pixel of the next edge
+            if (p.xpoints[j] != p.xpoints[i] || p.ypoints[j] != p.ypoints[i]) {
+                line(p.xpoints[j], p.ypoints[j], p.xpoints[i], p.ypoints[i], false);
+                moved = true;
+            }
+        }
+        if (n > 0 && !moved) {
+            plot(p.xpoints[0], p.ypoints[0]);
+        }
+    }
+
+    private void line(int x1, int y1, int x2, int y2, boolean last) {
+        int dx = Math.abs(x2 - x1);
+        int dy = -Math.abs(y2 - y1);
+        int stepX = x1 < x2 ? 1 : -1;
+        int stepY = y1 < y2 ? 1 : -1;
+        int error = dx + dy;
+        int px = x1;
+        int py = y1;
+        while (true) {
+            if (px == x2 && py == y2) {
+                if (last) {
+                    plot(px, py);
+                }
+                return;
+            }
+            plot(px, py);
+            int twice = 2 * error;
+            if (twice >= dy) {
+                error += dy;
+                px += stepX;
+            }
+            if (twice <= dx) {
+                error += dx;
+                py += stepY;
+            }
+        }
+    }
+
+    /**
+     * Draws text with the built-in font, standing on the given baseline.
+     * @param x the x coordinate of the left edge of the text
+     * @param y the y coordinate of the baseline
+     * @param s the text
+     * @param size the font size; capitals are about 0.7 of it tall
+     */
+    @Override
+    public void drawText(int x, int y, String s, int size) {
+        int scale = Math.max(1, (size + TEXT_SIZE_PER_SCALE / 2) / TEXT_SIZE_PER_SCALE);
+        int top = y - GLYPH_HEIGHT * scale;
+        for (int i = 0; i < s.length(); i++) {
+            int c = Character.toUpperCase(s.charAt(i)) - FIRST_GLYPH;
+            long glyph = c >= 0 && c < GLYPHS.length ? GLYPHS[c] : 0;
+            int left = x + i * GLYPH_ADVANCE * scale;
+            for (int bit = GLYPH_WIDTH * GLYPH_HEIGHT - 1; glyph != 0 && bit >= 0; bit--) {
+                if ((glyph >>> bit & 1) != 0) {
+                    int dot = GLYPH_WIDTH * GLYPH_HEIGHT - 1 - bit;
+                    fillRectangle(left + dot % GLYPH_WIDTH * scale, top + dot / GLYPH_WIDTH * scale, scale, scale);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws an image with its upper-left corner at the given pixel. Opaque images of packed RGB pixels, such as
+     * the cached static layer, are copied row by row.
+     * @param x the x coordinate of the left edge of the image
+     * @param y the y coordinate of the top edge of the image
+     * @param img the image, which must be a BufferedImage
+     */
+    @Override
+    public void drawImage(int x, int y, Image img) {
+        if (!(img instanceof BufferedImage)) {
+            throw new IllegalArgumentException("only buffered images can be drawn: " + img);
+        }
+        BufferedImage image = (BufferedImage) img;
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + image.getWidth(), width);
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + image.getHeight(), height);
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        int w = x1 - x0;
+        if (image.getType() == BufferedImage.TYPE_INT_RGB && image.getRaster().getParent() == null) {
+            int[] source = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            for (int py = y0; py < y1; py++) {
+                int from = (py - y) * image.getWidth() + (x0 - x);
+                int to = py * width + x0;
+                for (int i = 0; i < w; i++) {
+                    pixels[to + i] = source[from + i] | OPAQUE;
+                }
+            }
+            return;
+        }
+        if (row == null || row.length < w) {
+            row = new int[w];
+        }
+        for (int py = y0; py < y1; py++) {
+            image.getRGB(x0 - x, py - y, w, 1, row, 0, w);
+            int to = py * width + x0;
+            for (int i = 0; i < w; i++) {
+                pixels[to + i] = blend(row[i], pixels[to + i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the width of the surface.
+     * @return the width, in pixels
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the surface.
+     * @return the height, in pixels
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sets every pixel of the surface to the given color, without blending.
+     * @param c the color
+     */
+    public void clear(Color c) {
+        Arrays.fill(pixels, c.getRGB());
+    }
+
+    /**
+     * Returns the pixels of the surface, row by row from the top, as packed ARGB. The array is the surface itself,
+     * not a copy, so it changes with every shape drawn.
+     * @return the pixels
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns the color of a pixel as packed ARGB.
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return the color of the pixel
+     */
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Copies the surface into a new image, for saving or comparing.
+     * @return an image of the surface
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    private void plot(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            int i = y * width + x;
+            pixels[i] = blend(color, pixels[i]);
+        }
+    }
+
+    /**
+     * Plots a pixel in every quadrant of an ellipse, each pixel once when the quadrants share a row or a column.
+     */
+    private void plotMirrored(int left, int right, int above, int below) {
+        plot(right, below);
+        if (left != right) {
+            plot(left, below);
+        }
+        if (above != below) {
+            plot(right, above);
+            if (left != right) {
+                plot(left, above);
+            }
+        }
+    }
+
+    private void span(int x0, int x1, int y) {
+        if (x0 >= x1) {
+            return;
+        }
+        int start = y * width;
+        if ((color & OPAQUE) == OPAQUE) {
+            Arrays.fill(pixels, start + x0, start + x1, color);
+            return;
+        }
+        for (int i = start + x0; i < start + x1; i++) {
+            pixels[i] = blend(color, pixels[i]);
+        }
+    }
+
+    /**
+     * Draws one color over another, by the alpha of the first.
+     * @param source the color drawn on top
+     * @param target the color underneath
+     * @return the resulting color
+     */
+    private static int blend(int source, int target) {
+        int a = source >>> 24;
+        if (a == 0xFF) {
+            return source;
+        }
+        if (a == 0) {
+            return target;
+        }
+        int inverse = 0xFF - a;
+        int outA = a + (target >>> 24) * inverse / 0xFF;
+        int r = ((source >> 16 & 0xFF) * a + (target >> 16 & 0xFF) * inverse) / 0xFF;
+        int g = ((source >> 8 & 0xFF) * a + (target >> 8 & 0xFF) * inverse) / 0xFF;
+        int b = ((source & 0xFF) * a + (target & 0xFF) * inverse) / 0xFF;
+        return outA << 24 | r << 16 | g << 8 | b;
+    }
+}
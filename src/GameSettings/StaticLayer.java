@@ -0,0 +1,225 @@
+package GameSettings;
+
+import GameObjects.*;
+import GameObjects.Rectangle;
+import biuoop.DrawSurface;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The StaticLayer class caches the background and all the static sprites of the game in an off-screen image.
+ * <p>
+ * The image is drawn in full once. After that, only the areas of removed sprites are redrawn, so drawing a frame
+ * costs the same however many static sprites there are. The image is created on the first draw, so a game that is
+ * never drawn does not pay for it.
+ * <p>
+ * The layer keeps its sprites in a coarse grid of cells, so redrawing an area only looks at the sprites in the
+ * cells the area covers.
+ */
+public class StaticLayer {
+    private static final int MAX_DIRTY_AREAS = 64;
+    private static final int CELL_SIZE = 64;
+
+    private final int width;
+    private final int height;
+    private final Color background;
+    private final Map<StaticSprite, Member> sprites;   // in drawing order
+    private final List<Member>[] cells;                // the members overlapping every cell, row by row
+    private final int columns;
+    private final int rows;
+    private final List<Member> overlapping;            // reused by every area redraw
+    private final List<Rectangle> dirtyAreas;
+    private long nextOrder;
+    private BufferedImage image;
+    private boolean fullyDirty;
+
+    /**
+     * Constructs an empty layer.
+     * @param width the width of the layer
+     * @param height the height of the layer
+     * @param background the color behind all the sprites
+     */
+    public StaticLayer(int width, int height, Color background) {
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.sprites = new LinkedHashMap<>();
+        this.columns = Math.max(1, (width + CELL_SIZE) / CELL_SIZE);
+        this.rows = Math.max(1, (height + CELL_SIZE) / CELL_SIZE);
+        this.cells = newCells(columns * rows);
+        this.overlapping = new ArrayList<>();
+        this.dirtyAreas = new ArrayList<>();
+        this.fullyDirty = true;
+    }
+
+    /**
+     * Adds a sprite to the layer, on top of the sprites already in it.
+     * @param s the sprite to add
+     */
+    public void addSprite(StaticSprite s) {
+        if (sprites.containsKey(s)) {
+            return;
+        }
+        Rectangle bounds = s.getBounds();
+        Member member = new Member(s, bounds, nextOrder++);
+        sprites.put(s, member);
+        for (int cy = rowOf(member.top); cy <= rowOf(member.bottom); cy++) {
+            for (int cx = columnOf(member.left); cx <= columnOf(member.right); cx++) {
+                cells[cy * columns + cx].add(member);
+            }
+        }
+        if (!fullyDirty) {
+            dirtyAreas.add(bounds);
+        }
+    }
+
+    /**
+     * Adds many sprites to the layer at once, in order, on top of the sprites already in it.
+     * Once the layer was drawn, adding more than a handful of sprites redraws it in full.
+     * @param ss the sprites to add
+     */
+    public void addSprites(Collection<? extends StaticSprite> ss) {
+        if (!fullyDirty && ss.size() > MAX_DIRTY_AREAS) {
+            fullyDirty = true;
+            dirtyAreas.clear();
+        }
+        for (StaticSprite s : ss) {
+            addSprite(s);
+        }
+    }
+
+    /**
+     * Removes a sprite from the layer.
+     * @param s the sprite to remove
+     */
+    public void removeSprite(StaticSprite s) {
+        Member member = sprites.remove(s);
+        if (member == null) {
+            return;
+        }
+        for (int cy = rowOf(member.top); cy <= rowOf(member.bottom); cy++) {
+            for (int cx = columnOf(member.left); cx <= columnOf(member.right); cx++) {
+                cells[cy * columns + cx].remove(member);
+            }
+        }
+        if (!fullyDirty) {
+            dirtyAreas.add(s.getBounds());
+        }
+    }
+
+    /**
+     * Draws the layer on the given DrawSurface, redrawing the cached image first where it changed.
+     * @param d the DrawSurface to draw the layer on
+     */
+    public void drawOn(DrawSurface d) {
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        if (fullyDirty || !dirtyAreas.isEmpty()) {
+            redraw();
+        }
+        d.drawImage(0, 0, image);
+    }
+
+    private void redraw() {
+        Graphics2D g = image.createGraphics();
+        try {
+            if (fullyDirty) {
+                g.setColor(background);
+                g.fillRect(0, 0, width, height);
+                for (StaticSprite s : sprites.keySet()) {
+                    s.drawOn(g);
+                }
+            } else {
+                for (Rectangle area : dirtyAreas) {
+                    redraw(g, area);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        fullyDirty = false;
+        dirtyAreas.clear();
+    }
+
+    /**
+     * Clears an area and draws again every sprite that overlaps it, in drawing order.
+     * The area is grown by one pixel on the right and bottom to cover the outline of the sprite.
+     * @param g the graphics of the image
+     * @param area the area to redraw
+     */
+    private void redraw(Graphics2D g, Rectangle area) {
+        int x = (int) area.getLeft();
+        int y = (int) area.getTop();
+        int w = (int) area.getWidth() + 1;
+        int h = (int) area.getHeight() + 1;
+        g.setClip(x, y, w, h);
+        g.setColor(background);
+        g.fillRect(x, y, w, h);
+        int firstColumn = columnOf(x);
+        int firstRow = rowOf(y);
+        for (int cy = firstRow; cy <= rowOf(y + h); cy++) {
+            for (int cx = firstColumn; cx <= columnOf(x + w); cx++) {
+                List<Member> cell = cells[cy * columns + cx];
+                for (int i = 0; i < cell.size(); i++) {
+                    Member m = cell.get(i);
+                    // a member in several of the cells is only taken from the first of them
+                    if (Math.max(columnOf(m.left), firstColumn) == cx && Math.max(rowOf(m.top), firstRow) == cy
+                            && m.left <= x + w && m.right >= x && m.top <= y + h && m.bottom >= y) {
+                        overlapping.add(m);
+                    }
+                }
+            }
+        }
+        overlapping.sort((a, b) -> Long.compare(a.order, b.order));
+        for (Member m : overlapping) {
+            m.sprite.drawOn(g);
+        }
+        overlapping.clear();
+        g.setClip(null);
+    }
+
+    private int columnOf(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, CELL_SIZE)));
+    }
+
+    private int rowOf(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, CELL_SIZE)));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<Member>[] newCells(int count) {
+        List<Member>[] cells = new List[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = new ArrayList<>();
+        }
+        return cells;
+    }
+
+    /**
+     * A sprite of the layer, with the pixels it covers including its outline, and its place in drawing order.
+     */
+    private static final class Member {
+        private final StaticSprite sprite;
+        private final int left;
+        private final int top;
+        private final int right;
+        private final int bottom;
+        private final long order;
+
+        Member(StaticSprite sprite, Rectangle bounds, long order) {
+            this.sprite = sprite;
+            this.left = (int) bounds.getLeft();
+            this.top = (int) bounds.getTop();
+            this.right = left + (int) bounds.getWidth() + 1;
+            this.bottom = top + (int) bounds.getHeight() + 1;
+            this.order = order;
+        }
+    }
+}
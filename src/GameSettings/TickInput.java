@@ -0,0 +1,27 @@
+package GameSettings;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The TickInput interface represents a keyboard sensor whose state only changes between game ticks.
+ * <p>
+ * The game calls {@link #nextTick()} before every physics step, so every sprite sees the same keys during a step,
+ * and the input of a step can be recorded or replayed.
+ */
+public interface TickInput extends KeyboardSensor {
+
+    /**
+     * Moves the input to the next tick.
+     */
+    void nextTick();
+
+    /**
+     * Returns for how much of the last tick the given key was held. Inputs that only know whether a key is held
+     * at the start of a tick report all or nothing.
+     * @param key the key to check
+     * @return the held fraction, between 0 and 1
+     */
+    default double heldFraction(String key) {
+        return isPressed(key) ? 1 : 0;
+    }
+}
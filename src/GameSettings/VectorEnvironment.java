@@ -0,0 +1,258 @@
+package GameSettings;
+
+import GameObjects.BallSystem;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The VectorEnvironment class steps many headless copies of one level at once, for training paddle agents.
+ * <p>
+ * Every copy is a regular headless {@link Game}, so it plays by exactly the same rules as the real game. An agent
+ * gives one action per copy, every copy advances one tick, and the observations, rewards and ends of all the
+ * copies are written into arrays the caller owns, which are reused from step to step.
+ * <p>
+ * The observation of a copy is a fixed number of values: the x coordinate of the left edge of the paddle, then
+ * the position and velocity (x, y, dx, dy) of every ball in play, followed by zeros for the balls that were lost,
+ * then one value per removable block of the level, in level order: 1 while the block is there, 0 once it was
+ * cleared. The byte form holds the same numbers as floats, with the blocks packed as a bitmap, lowest bit first.
+ * <p>
+ * The reward of a step is the score gained in it. A copy is done when its game ended or after maxEpisodeTicks
+ * ticks; it then starts over on the next seed, and the observation written for it is the first one of the new
+ * episode.
+ */
+public class VectorEnvironment {
+    /**
+     * The action that holds no key.
+     */
+    public static final int STAY = 0;
+    /**
+     * The action that holds the left key.
+     */
+    public static final int LEFT = SessionLog.LEFT;
+    /**
+     * The action that holds the right key.
+     */
+    public static final int RIGHT = SessionLog.RIGHT;
+
+    private static final int PARALLEL_THRESHOLD = 8;
+    private static final int VALUES_PER_BALL = 4;
+
+    private final LevelFile level;
+    private final long maxEpisodeTicks;
+    private final int ballCount;
+    private final int blockCount;
+    private final Game[] games;
+    private final ActionInput[] inputs;
+    private final long[] seeds;
+    private final int[] scores;
+    private boolean parallel;
+
+    /**
+     * Constructs the given number of copies of a level, each seeded differently.
+     * @param count the number of copies
+     * @param level the level every copy plays
+     * @param seed the seed of the first episode of the first copy; the other episodes use the seeds after it
+     * @param maxEpisodeTicks the most ticks an episode may last before it is cut short
+     */
+    public VectorEnvironment(int count, LevelFile level, long seed, long maxEpisodeTicks) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        this.level = level;
+        this.maxEpisodeTicks = maxEpisodeTicks;
+        this.ballCount = level.getBallCount();
+        int removable = 0;
+        for (int i = 0; i < level.getBlockCount(); i++) {
+            if ((level.getBlockFlags(i) & LevelFile.REMOVABLE) != 0) {
+                removable++;
+            }
+        }
+        this.blockCount = removable;
+        this.games = new Game[count];
+        this.inputs = new ActionInput[count];
+        this.seeds = new long[count];
+        this.scores = new int[count];
+        for (int i = 0; i < count; i++) {
+            inputs[i] = new ActionInput();
+            seeds[i] = seed + i;
+        }
+        this.parallel = true;
+    }
+
+    /**
+     * Sets whether the copies are stepped on several cores. The results are the same either way.
+     * @param parallel true to step in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Returns the number of copies.
+     * @return the number of copies
+     */
+    public int size() {
+        return games.length;
+    }
+
+    /**
+     * Returns the number of values in the observation of one copy.
+     * @return the observation size, in doubles
+     */
+    public int getObservationSize() {
+        return 1 + VALUES_PER_BALL * ballCount + blockCount;
+    }
+
+    /**
+     * Returns the number of bytes in the byte form of the observation of one copy.
+     * @return the observation size, in bytes
+     */
+    public int getObservationBytes() {
+        return Float.BYTES * (1 + VALUES_PER_BALL * ballCount) + (blockCount + 7) / 8;
+    }
+
+    /**
+     * Starts a new episode in every copy and writes the first observations.
+     * @param observations size() * getObservationSize() values, copy after copy
+     */
+    public void reset(double[] observations) {
+        forEach(i -> {
+            restart(i);
+            observe(i, observations);
+        });
+    }
+
+    /**
+     * Starts a new episode in every copy and writes the first observations in byte form.
+     * @param observations a buffer with size() * getObservationBytes() bytes from its position on
+     */
+    public void reset(ByteBuffer observations) {
+        int base = observations.position();
+        forEach(i -> {
+            restart(i);
+            observe(i, observations, base);
+        });
+    }
+
+    /**
+     * Advances every copy one tick.
+     * @param actions the action of every copy: STAY, LEFT or RIGHT
+     * @param observations size() * getObservationSize() values, copy after copy, to write the observations to
+     * @param rewards the score every copy gained in the tick is written here
+     * @param dones whether every copy ended its episode in the tick is written here
+     */
+    public void step(int[] actions, double[] observations, double[] rewards, boolean[] dones) {
+        forEach(i -> {
+            advance(i, actions[i], rewards, dones);
+            observe(i, observations);
+        });
+    }
+
+    /**
+     * Advances every copy one tick, writing the observations in byte form.
+     * @param actions the action of every copy: STAY, LEFT or RIGHT
+     * @param observations a buffer with size() * getObservationBytes() bytes from its position on
+     * @param rewards the score every copy gained in the tick is written here
+     * @param dones whether every copy ended its episode in the tick is written here
+     */
+    public void step(int[] actions, ByteBuffer observations, double[] rewards, boolean[] dones) {
+        int base = observations.position();
+        forEach(i -> {
+            advance(i, actions[i], rewards, dones);
+            observe(i, observations, base);
+        });
+    }
+
+    /**
+     * Returns the game of a copy, to watch or inspect it. It must not be changed.
+     * @param i the index of the copy
+     * @return the game of the current episode of the copy
+     */
+    public Game getGame(int i) {
+        return games[i];
+    }
+
+    private void forEach(IntConsumer action) {
+        if (parallel && games.length >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, games.length).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < games.length; i++) {
+                action.accept(i);
+            }
+        }
+    }
+
+    private void restart(int i) {
+        Game game = new Game(inputs[i], seeds[i]);
+        seeds[i] += games.length;
+        game.initialize(level);
+        inputs[i].set(STAY);
+        games[i] = game;
+        scores[i] = 0;
+    }
+
+    private void advance(int i, int action, double[] rewards, boolean[] dones) {
+        Game game = games[i];
+        inputs[i].set(action);
+        game.runHeadless(1);
+        int score = game.getScore();
+        rewards[i] = score - scores[i];
+        scores[i] = score;
+        boolean done = !game.isRunning() || game.getTick() >= maxEpisodeTicks;
+        dones[i] = done;
+        if (done) {
+            restart(i);
+        }
+    }
+
+    private void observe(int i, double[] observations) {
+        Game game = games[i];
+        int at = i * getObservationSize();
+        observations[at++] = game.getPaddle().getCollisionRectangle().getLeft();
+        BallSystem balls = game.getBallSystem();
+        int inPlay = Math.min(balls.size(), ballCount);
+        for (int b = 0; b < inPlay; b++) {
+            observations[at++] = balls.getX(b);
+            observations[at++] = balls.getY(b);
+            observations[at++] = balls.getDx(b);
+            observations[at++] = balls.getDy(b);
+        }
+        for (int b = inPlay; b < ballCount; b++) {
+            observations[at++] = 0;
+            observations[at++] = 0;
+            observations[at++] = 0;
+            observations[at++] = 0;
+        }
+        for (int k = 0; k < blockCount; k++) {
+            observations[at++] = game.isRemovableBlockLeft(k) ? 1 : 0;
+        }
+    }
+
+    private void observe(int i, ByteBuffer observations, int base) {
+        Game game = games[i];
+        int at = base + i * getObservationBytes();
+        observations.putFloat(at, (float) game.getPaddle().getCollisionRectangle().getLeft());
+        at += Float.BYTES;
+        BallSystem balls = game.getBallSystem();
+        int inPlay = Math.min(balls.size(), ballCount);
+        for (int b = 0; b < ballCount; b++) {
+            boolean present = b < inPlay;
+            observations.putFloat(at, present ? (float) balls.getX(b) : 0);
+            observations.putFloat(at + Float.BYTES, present ? (float) balls.getY(b) : 0);
+            observations.putFloat(at + 2 * Float.BYTES, present ? (float) balls.getDx(b) : 0);
+            observations.putFloat(at + 3 * Float.BYTES, present ? (float) balls.getDy(b) : 0);
+            at += VALUES_PER_BALL * Float.BYTES;
+        }
+        for (int k = 0; k < blockCount; k += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && k + j < blockCount; j++) {
+                if (game.isRemovableBlockLeft(k + j)) {
+                    bits |= 1 << j;
+                }
+            }
+            observations.put(at++, (byte) bits);
+        }
+    }
+}
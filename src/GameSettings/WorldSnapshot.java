@@ -0,0 +1,158 @@
+package GameSettings;
+
+import GameObjects.BallSystem;
+import GameObjects.Paddle;
+import GameObjects.Rectangle;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * The WorldSnapshot class is a copy of everything a frame shows that moves: the score, the paddle and the balls,
+ * each at its position before and after the last time step.
+ * <p>
+ * The game thread captures a snapshot at the end of a tick and a render thread draws it later, so the two never
+ * read the same objects. Snapshots are reused: capturing one overwrites it in place and only grows its arrays
+ * when there are more balls than ever before.
+ */
+public class WorldSnapshot {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SCORE_TEXT_SIZE = 20;
+    private static final int SCORE_TEXT_X = 10;
+    private static final int SCORE_TEXT_Y = 20;
+
+    private long tick;
+    private long publishNanos;
+    private int score;
+    private boolean hasPaddle;
+    private double paddlePreviousLeft;
+    private double paddleLeft;
+    private double paddleTop;
+    private double paddleWidth;
+    private double paddleHeight;
+    private Color paddleColor;
+    private int ballCount;
+    private double[] ballPreviousX;
+    private double[] ballPreviousY;
+    private double[] ballX;
+    private double[] ballY;
+    private int[] ballRadius;
+    private Color[] ballColor;
+
+    /**
+     * Constructs an empty snapshot, showing nothing but a score of 0.
+     */
+    public WorldSnapshot() {
+        this.ballPreviousX = new double[INITIAL_CAPACITY];
+        this.ballPreviousY = new double[INITIAL_CAPACITY];
+        this.ballX = new double[INITIAL_CAPACITY];
+        this.ballY = new double[INITIAL_CAPACITY];
+        this.ballRadius = new int[INITIAL_CAPACITY];
+        this.ballColor = new Color[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Overwrites the snapshot with the current state of a game.
+     * @param gameTick the tick the state belongs to
+     * @param gameScore the current score
+     * @param paddle the paddle, or null if there is none
+     * @param balls the ball system, or null if there is none
+     */
+    public void capture(long gameTick, int gameScore, Paddle paddle, BallSystem balls) {
+        this.tick = gameTick;
+        this.score = gameScore;
+        this.hasPaddle = paddle != null;
+        if (paddle != null) {
+            Rectangle r = paddle.getCollisionRectangle();
+            this.paddlePreviousLeft = paddle.getPreviousLeft();
+            this.paddleLeft = r.getLeft();
+            this.paddleTop = r.getTop();
+            this.paddleWidth = r.getWidth();
+            this.paddleHeight = r.getHeight();
+            this.paddleColor = r.getColor();
+        }
+        int count = balls == null ? 0 : balls.size();
+        if (count > ballX.length) {
+            grow(Math.max(count, ballX.length * 2));
+        }
+        for (int i = 0; i < count; i++) {
+            ballPreviousX[i] = balls.getPreviousX(i);
+            ballPreviousY[i] = balls.getPreviousY(i);
+            ballX[i] = balls.getX(i);
+            ballY[i] = balls.getY(i);
+            ballRadius[i] = balls.getRadius(i);
+            ballColor[i] = balls.getColor(i);
+        }
+        if (this.ballCount > count) {
+            // drop the colors of balls that are gone, so the snapshot does not keep them alive
+            Arrays.fill(ballColor, count, this.ballCount, null);
+        }
+        this.ballCount = count;
+        this.publishNanos = System.nanoTime();
+    }
+
+    /**
+     * Draws the paddle, the balls and the score on the given DrawSurface, between their state before and after
+     * the tick of the snapshot, the same way the paddle, the ball system and the score indicator draw themselves.
+     * @param d the DrawSurface to draw on
+     * @param alpha how far between the previous (0) and the current (1) state to draw
+     */
+    public void drawOn(DrawSurface d, double alpha) {
+        if (hasPaddle) {
+            int x = (int) (paddlePreviousLeft + (paddleLeft - paddlePreviousLeft) * alpha);
+            d.setColor(paddleColor);
+            d.fillRectangle(x, (int) paddleTop, (int) paddleWidth, (int) paddleHeight);
+            d.setColor(Color.black);
+            d.drawRectangle(x, (int) paddleTop, (int) paddleWidth, (int) paddleHeight);
+        }
+        for (int i = 0; i < ballCount; i++) {
+            d.setColor(ballColor[i]);
+            d.fillCircle((int) (ballPreviousX[i] + (ballX[i] - ballPreviousX[i]) * alpha),
+                    (int) (ballPreviousY[i] + (ballY[i] - ballPreviousY[i]) * alpha), ballRadius[i]);
+        }
+        d.setColor(Color.BLACK);
+        d.drawText(SCORE_TEXT_X, SCORE_TEXT_Y, "Score: " + score, SCORE_TEXT_SIZE);
+    }
+
+    /**
+     * Returns the tick the snapshot was captured at.
+     * @return the tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the time the snapshot was captured at, as given by System.nanoTime().
+     * @return the capture time, in nanoseconds
+     */
+    public long getPublishNanos() {
+        return publishNanos;
+    }
+
+    /**
+     * Returns the score at the tick of the snapshot.
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of balls in the snapshot.
+     * @return the number of balls
+     */
+    public int getBallCount() {
+        return ballCount;
+    }
+
+    private void grow(int capacity) {
+        ballPreviousX = Arrays.copyOf(ballPreviousX, capacity);
+        ballPreviousY = Arrays.copyOf(ballPreviousY, capacity);
+        ballX = Arrays.copyOf(ballX, capacity);
+        ballY = Arrays.copyOf(ballY, capacity);
+        ballRadius = Arrays.copyOf(ballRadius, capacity);
+        ballColor = Arrays.copyOf(ballColor, capacity);
+    }
+}
@@ -0,0 +1,57 @@
+import GameSettings.BoundingVolumeHierarchy;
+import GameSettings.Game;
+import GameSettings.LevelFile;
+import GameSettings.LinearScan;
+import GameSettings.ScriptedKeyboard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * this class runs many games without a display, as fast as possible, and reports the simulation speed.
+ * <p>
+ * usage: HeadlessSimulation [games] [max ticks per game] [paddle script] [binary level file] [linear|grid|bvh]
+ * [poll|events|cache] [pass|collide]
+ * <p>
+ * with collide, the balls bounce off each other instead of passing through each other.
+ */
+public class HeadlessSimulation {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long maxTicks = args.length > 1 ? Long.parseLong(args[1]) : 100_000;
+        String script = args.length > 2 ? args[2] : "LLLLLLLLLL..........RRRRRRRRRR..........";
+        LevelFile level = args.length > 3 && !args[3].isEmpty() ? LevelFile.open(Path.of(args[3])) : null;
+        String index = args.length > 4 ? args[4] : "grid";
+        boolean events = args.length > 5 && args[5].equals("events");
+        boolean cache = args.length > 5 && args[5].equals("cache");
+        boolean ballCollisions = args.length > 6 && args[6].equals("collide");
+
+        long totalTicks = 0;
+        int cleared = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            Game game = new Game(new ScriptedKeyboard(script));
+            if (index.equals("bvh")) {
+                game.setCollisionIndex(new BoundingVolumeHierarchy());
+            } else if (index.equals("linear")) {
+                game.setCollisionIndex(new LinearScan());
+            }
+            game.setEventDriven(events);
+            game.setCandidateCaching(cache);
+            game.setBallCollisions(ballCollisions);
+            if (level != null) {
+                game.initialize(level);
+            } else {
+                game.initialize();
+            }
+            totalTicks += game.runHeadless(maxTicks);
+            if (game.getRemainingBlocks() == 0) {
+                cleared++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d cleared, %d ticks in %.3f s: %.0f ticks/s, %.0f games/min%n",
+                games, cleared, totalTicks, seconds, totalTicks / seconds, games / seconds * 60);
+    }
+}
@@ -0,0 +1,91 @@
+import GameSettings.LoopbackClient;
+import GameSettings.SessionHost;
+import GameSettings.SessionUpdate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * this class hosts many games in one process, each played by a scripted bot through a loopback client, and
+ * reports the throughput of the host every second until all the games ended.
+ * <p>
+ * usage: HostSessions [sessions] [worker threads] [ticks per second, 0 for as fast as possible] [max ticks per game]
+ * [paddle script]
+ */
+public class HostSessions {
+    private static final int CLIENT_THREADS = 2;
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int ticksPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        long maxTicks = args.length > 3 ? Long.parseLong(args[3]) : 100_000;
+        String script = args.length > 4 ? args[4] : "LLLLLLLLLL..........RRRRRRRRRR..........";
+
+        try (SessionHost host = new SessionHost(workers)) {
+            List<List<LoopbackClient>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENT_THREADS; i++) {
+                clients.add(new ArrayList<>());
+            }
+            for (int i = 0; i < sessions; i++) {
+                clients.get(i % CLIENT_THREADS).add(host.open(i, null, ticksPerSecond));
+            }
+            List<Thread> bots = new ArrayList<>();
+            for (List<LoopbackClient> share : clients) {
+                Thread bot = new Thread(() -> play(share, maxTicks, script), "bot");
+                bot.setDaemon(true);
+                bot.start();
+                bots.add(bot);
+            }
+            while (!host.awaitIdle(1, TimeUnit.SECONDS)) {
+                report(host);
+            }
+            report(host);
+            for (Thread bot : bots) {
+                bot.join();
+            }
+        }
+    }
+
+    /**
+     * Plays the given sessions on the calling thread: every update read is answered with the keys of the next tick
+     * of the script, and a game that is still running after maxTicks ticks is left.
+     */
+    private static void play(List<LoopbackClient> clients, long maxTicks, String script) {
+        List<LoopbackClient> playing = new ArrayList<>(clients);
+        List<SessionUpdate> read = new ArrayList<>();
+        while (!playing.isEmpty()) {
+            boolean idle = true;
+            for (int i = playing.size() - 1; i >= 0; i--) {
+                LoopbackClient client = playing.get(i);
+                read.clear();
+                client.drainTo(read);
+                boolean timedOut = false;
+                for (SessionUpdate update : read) {
+                    char key = script.charAt((int) (update.getTick() % script.length()));
+                    client.send(key == 'L', key == 'R');
+                    timedOut |= update.getTick() >= maxTicks;
+                }
+                idle &= read.isEmpty();
+                if (timedOut) {
+                    client.close();
+                }
+                if (timedOut || client.isDone()) {
+                    playing.set(i, playing.get(playing.size() - 1));
+                    playing.remove(playing.size() - 1);
+                }
+            }
+            if (idle) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private static void report(SessionHost host) {
+        System.out.printf("%d active, %d finished, %d left, %d ticks, %.0f ticks/s, %d stalled turns, "
+                        + "delay mean %.0f us max %.0f us%n",
+                host.getActiveSessions(), host.getFinishedSessions(), host.getAbandonedSessions(), host.getTicks(), host.getTicksPerSecond(),
+                host.getStalledTurns(), host.getMeanDelayMicros(), host.getMaxDelayMicros());
+    }
+}
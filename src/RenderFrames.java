@@ -0,0 +1,52 @@
+import GameSettings.Game;
+import GameSettings.LevelFile;
+import GameSettings.ScriptedKeyboard;
+import GameSettings.SoftwareSurface;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+/**
+ * this class plays a game without a display, draws every tick into a software surface, and reports the drawing
+ * speed. the last frame can be saved as an image, so with 0 frames it makes a thumbnail of a level.
+ * <p>
+ * usage: RenderFrames [frames] [binary level file] [png file to save the last frame to] [paddle script]
+ */
+public class RenderFrames {
+
+    public static void main(String[] args) throws IOException {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        LevelFile level = args.length > 1 && !args[1].isEmpty() ? LevelFile.open(Path.of(args[1])) : null;
+        String output = args.length > 2 && !args[2].isEmpty() ? args[2] : null;
+        String script = args.length > 3 ? args[3] : "LLLLLLLLLL..........RRRRRRRRRR..........";
+
+        Game game = new Game(new ScriptedKeyboard(script));
+        if (level != null) {
+            game.initialize(level);
+        } else {
+            game.initialize();
+        }
+        SoftwareSurface surface = new SoftwareSurface(game.getWidth(), game.getHeight());
+        game.drawFrame(surface, 1);
+
+        long drawNanos = 0;
+        int drawn = 0;
+        while (drawn < frames && game.isRunning()) {
+            game.runHeadless(1);
+            long start = System.nanoTime();
+            game.drawFrame(surface, 1);
+            drawNanos += System.nanoTime() - start;
+            drawn++;
+        }
+        if (drawn > 0) {
+            double seconds = drawNanos / 1e9;
+            System.out.printf("%d frames drawn in %.3f s: %.0f frames/s, %.1f us/frame%n",
+                    drawn, seconds, drawn / seconds, drawNanos / 1e3 / drawn);
+        }
+        if (output != null) {
+            ImageIO.write(surface.toImage(), "png", Path.of(output).toFile());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import GameSettings.LevelFile;
+import GameSettings.SessionLog;
+import GameSettings.SessionReplayer;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * this class replays a recorded game session without a display and checks it against its checkpoints.
+ * <p>
+ * usage: ReplaySession [session log] [binary level file the session was played on]
+ */
+public class ReplaySession {
+
+    public static void main(String[] args) throws IOException {
+        SessionLog log;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(args[0]))) {
+            log = SessionLog.read(in);
+        }
+        long start = System.nanoTime();
+        LevelFile level = args.length > 1 ? LevelFile.open(Path.of(args[1])) : null;
+        SessionReplayer replayer;
+        try {
+            replayer = new SessionReplayer(log, level);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        boolean matched = replayer.replay();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long ticks = replayer.getGame().getTick();
+        System.out.printf("%d ticks replayed in %.3f s (%.0f ticks/s), score %d%n",
+                ticks, seconds, ticks / seconds, replayer.getGame().getScore());
+        if (matched) {
+            System.out.println("all " + log.getCheckpointCount() + " checkpoints matched");
+        } else {
+            System.out.println("diverged at the checkpoint of tick " + replayer.getMismatchTick());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package Benchmarks;
+
+import GameObjects.Ball;
+import GameObjects.CollisionInfo;
+import GameObjects.Line;
+import GameSettings.GameEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The EnvironmentBenchmarks class measures how collision queries and single ball steps scale with the number of
+ * collidables in the environment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EnvironmentBenchmarks {
+    @Param({"60", "1000", "10000", "100000"})
+    private int collidables;
+
+    private GameEnvironment environment;
+    private Line[] trajectories;
+    private Ball ball;
+    private int next;
+
+    /**
+     * Builds the world, the query trajectories and the ball.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int side = Worlds.side(collidables);
+        environment = Worlds.level(collidables, side);
+        trajectories = Worlds.trajectories(random, side);
+        ball = Worlds.ball(random, side, environment);
+    }
+
+    /**
+     * Finds the first collidable along the next random trajectory.
+     * @return the closest collision, or null
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        next = (next + 1) & (Worlds.QUERIES - 1);
+        return environment.getClosestCollision(trajectories[next]);
+    }
+
+    /**
+     * Moves one ball one step, bouncing off whatever it hits.
+     * @return the x coordinate of the ball
+     */
+    @Benchmark
+    public double ballMoveOneStep() {
+        ball.moveOneStep();
+        return ball.getX();
+    }
+}
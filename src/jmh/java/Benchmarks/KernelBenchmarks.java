@@ -0,0 +1,83 @@
+package Benchmarks;
+
+import GameObjects.Line;
+import GameObjects.Point;
+import GameObjects.RayCast;
+import GameObjects.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The KernelBenchmarks class measures the segment kernels every collision query is built from: the line to line
+ * intersection, the allocating rectangle intersection, and the allocation-free ray cast that replaced it.
+ * <p>
+ * Every invocation tests the next of a fixed set of random segments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KernelBenchmarks {
+    private Line[] lines;
+    private Line edge;
+    private Rectangle rect;
+    private int next;
+
+    /**
+     * Makes the random segments, and the edge and rectangle they are tested against.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lines = new Line[Worlds.QUERIES];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = new Line(random.nextDouble() * 100, random.nextDouble() * 100,
+                    random.nextDouble() * 100, random.nextDouble() * 100);
+        }
+        edge = new Line(20, 20, 80, 80);
+        rect = new Rectangle(new Point(30, 30), 40, 40, Color.RED);
+    }
+
+    private Line nextLine() {
+        next = (next + 1) & (Worlds.QUERIES - 1);
+        return lines[next];
+    }
+
+    /**
+     * Intersects a segment with a fixed edge.
+     * @return the intersection point, or null
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        return nextLine().intersectionWith(edge);
+    }
+
+    /**
+     * Lists the points where a segment crosses the edges of a rectangle.
+     * @param blackhole consumes the points
+     */
+    @Benchmark
+    public void rectangleIntersectionPoints(Blackhole blackhole) {
+        blackhole.consume(rect.intersectionPoints(nextLine()));
+    }
+
+    /**
+     * Finds when a segment enters a rectangle, without allocating.
+     * @return the entry time, or RayCast.MISS
+     */
+    @Benchmark
+    public double rayCastEntryTime() {
+        Line line = nextLine();
+        return RayCast.entryTime(line.start().getX(), line.start().getY(), line.end().getX(), line.end().getY(),
+                rect);
+    }
+}
@@ -0,0 +1,107 @@
+package Benchmarks;
+
+import GameObjects.BallSystem;
+import GameObjects.Collidable;
+import GameObjects.Sprite;
+import GameObjects.SpriteCollection;
+import GameSettings.GameEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The StepBenchmarks class measures a whole physics tick of many balls in a small level, stepped either as
+ * separate sprites or together by a ball system, with and without ball-to-ball collisions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StepBenchmarks {
+    private static final int COLLIDABLES = 60;
+
+    /**
+     * A level whose balls are separate sprites in a sprite collection, along with its blocks.
+     */
+    @State(Scope.Thread)
+    public static class SpriteWorld {
+        @Param({"3", "100", "1000"})
+        private int balls;
+
+        private SpriteCollection sprites;
+
+        /**
+         * Builds the level and adds the blocks and the balls to the sprite collection.
+         */
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            int side = Worlds.side(COLLIDABLES);
+            GameEnvironment environment = Worlds.level(COLLIDABLES, side);
+            sprites = new SpriteCollection();
+            for (Collidable c : environment.getCollidables()) {
+                sprites.addSprite((Sprite) c);
+            }
+            for (int i = 0; i < balls; i++) {
+                sprites.addSprite(Worlds.ball(random, side, environment));
+            }
+        }
+    }
+
+    /**
+     * A level whose balls are held by a ball system.
+     */
+    @State(Scope.Thread)
+    public static class SystemWorld {
+        @Param({"100", "1000", "10000"})
+        private int balls;
+
+        @Param({"false", "true"})
+        private boolean ballCollisions;
+
+        private BallSystem ballSystem;
+
+        /**
+         * Builds the level and adds the balls to the ball system.
+         */
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            int side = Worlds.side(COLLIDABLES);
+            GameEnvironment environment = Worlds.level(COLLIDABLES, side);
+            ballSystem = new BallSystem(environment);
+            ballSystem.setBallCollisions(ballCollisions);
+            for (int i = 0; i < balls; i++) {
+                ballSystem.addBall(Worlds.ball(random, side, environment));
+            }
+        }
+    }
+
+    /**
+     * Steps every ball as a separate sprite.
+     * @param world the level
+     * @return the number of sprites
+     */
+    @Benchmark
+    public int spriteCollectionNotifyAllTimePassed(SpriteWorld world) {
+        world.sprites.notifyAllTimePassed();
+        return world.sprites.size();
+    }
+
+    /**
+     * Steps every ball together in the ball system.
+     * @param world the level
+     * @return the number of balls
+     */
+    @Benchmark
+    public int ballSystemStepAll(SystemWorld world) {
+        world.ballSystem.stepAll();
+        return world.ballSystem.size();
+    }
+}
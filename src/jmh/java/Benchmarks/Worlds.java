@@ -0,0 +1,97 @@
+package Benchmarks;
+
+import GameObjects.Ball;
+import GameObjects.Block;
+import GameObjects.Line;
+import GameObjects.Point;
+import GameObjects.Rectangle;
+import GameObjects.Velocity;
+import GameSettings.GameEnvironment;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * The Worlds class builds the levels, trajectories and balls the benchmarks run on.
+ * <p>
+ * Every world is a square with borders and blocks without hit listeners, so nothing is ever removed and every
+ * invocation of a benchmark sees the same world.
+ */
+final class Worlds {
+    static final int QUERIES = 4096;
+
+    private static final int BLOCK_WIDTH = 20;
+    private static final int BLOCK_HEIGHT = 10;
+    private static final int BORDER = 30;
+    private static final double BALL_SPEED = 3;
+
+    private Worlds() {
+    }
+
+    /**
+     * Returns the side of a square world big enough for the given number of blocks to fill a third of it.
+     * @param count the number of blocks
+     * @return the side of the world in pixels
+     */
+    static int side(int count) {
+        return 2 * BORDER + (int) Math.ceil(Math.sqrt(3.0 * count * BLOCK_WIDTH * BLOCK_HEIGHT));
+    }
+
+    /**
+     * Builds a bordered world with blocks.
+     * The blocks take every third cell of a regular layout, so balls have room to move between them.
+     * @param count the number of collidables, including the four borders
+     * @param side the side of the world
+     * @return the environment
+     */
+    static GameEnvironment level(int count, int side) {
+        GameEnvironment environment = new GameEnvironment();
+        environment.addCollidable(new Block(new Rectangle(new Point(0, 0), side, BORDER, Color.GRAY)));
+        environment.addCollidable(new Block(new Rectangle(new Point(0, side - BORDER), side, BORDER, Color.GRAY)));
+        environment.addCollidable(new Block(new Rectangle(new Point(0, BORDER), BORDER, side - 2 * BORDER,
+                Color.GRAY)));
+        environment.addCollidable(new Block(new Rectangle(new Point(side - BORDER, BORDER), BORDER,
+                side - 2 * BORDER, Color.GRAY)));
+        int columns = (side - 2 * BORDER) / BLOCK_WIDTH;
+        int added = 4;
+        for (int cell = 0; added < count; cell += 3) {
+            int x = BORDER + (cell % columns) * BLOCK_WIDTH;
+            int y = BORDER + (cell / columns) * BLOCK_HEIGHT;
+            environment.addCollidable(new Block(new Rectangle(new Point(x, y), BLOCK_WIDTH, BLOCK_HEIGHT,
+                    Color.BLUE)));
+            added++;
+        }
+        return environment;
+    }
+
+    /**
+     * Makes QUERIES random one-step ball trajectories inside a world.
+     * @param random the random generator
+     * @param side the side of the world
+     * @return the trajectories
+     */
+    static Line[] trajectories(Random random, int side) {
+        Line[] trajectories = new Line[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double x = BORDER + random.nextDouble() * (side - 2 * BORDER);
+            double y = BORDER + random.nextDouble() * (side - 2 * BORDER);
+            Velocity v = Velocity.fromAngleAndSpeed(random.nextDouble() * 360, BALL_SPEED);
+            trajectories[i] = new Line(new Point(x, y), v.applyToPoint(new Point(x, y)));
+        }
+        return trajectories;
+    }
+
+    /**
+     * Makes a ball near the bottom middle of a world, flying upwards.
+     * @param random the random generator
+     * @param side the side of the world
+     * @param environment the environment the ball collides with
+     * @return the ball
+     */
+    static Ball ball(Random random, int side, GameEnvironment environment) {
+        Ball ball = new Ball(new Point(side / 2.0 + random.nextInt(9), side - BORDER - 5), 5, Color.PINK,
+                environment);
+        ball.setVelocity(Velocity.fromAngleAndSpeed(200 + random.nextDouble() * 140, BALL_SPEED));
+        return ball;
+    }
+}